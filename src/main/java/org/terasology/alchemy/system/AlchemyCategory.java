@@ -4,6 +4,7 @@ package org.terasology.alchemy.system;
 
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.terasology.engine.entitySystem.prefab.Prefab;
 import org.terasology.engine.logic.common.DisplayNameComponent;
 import org.terasology.engine.rendering.assets.font.Font;
@@ -11,9 +12,6 @@ import org.terasology.engine.rendering.nui.widgets.browser.data.DocumentData;
 import org.terasology.engine.rendering.nui.widgets.browser.data.basic.FlowParagraphData;
 import org.terasology.engine.rendering.nui.widgets.browser.data.basic.flow.TextFlowRenderable;
 import org.terasology.engine.rendering.nui.widgets.browser.data.html.HTMLDocument;
-import org.terasology.engine.rendering.nui.widgets.browser.ui.style.ContainerInteger;
-import org.terasology.engine.rendering.nui.widgets.browser.ui.style.FixedContainerInteger;
-import org.terasology.engine.rendering.nui.widgets.browser.ui.style.ParagraphRenderStyle;
 import org.terasology.engine.rendering.nui.widgets.browser.ui.style.TextRenderStyle;
 import org.terasology.engine.utilities.Assets;
 import org.terasology.inGameHelpAPI.ItemsCategoryInGameHelpRegistry;
@@ -24,12 +22,16 @@ import org.terasology.inGameHelpAPI.ui.ItemWidget;
 import org.terasology.inGameHelpAPI.ui.WidgetFlowRenderable;
 
 import java.util.Map;
+import java.util.Set;
 
 /**
  * This help category manages how the Alchemy tab (or help document) will function in the in game help registry window.
+ * <p>
+ * The list of items in this category is built once, and only updated when item prefabs are added or removed. The help
+ * document of each item is only built the first time it's navigated to.
  */
 public class AlchemyCategory implements HelpCategory {
-    /** Create a mapping of Strings to DocuemntData to store the item help subpages. */
+    /** Create a mapping of Strings to DocuemntData to store the item help subpages. These are built when first needed. */
     Map<String, DocumentData> items = Maps.newHashMap();
 
     /** Reference to the root HTML document. */
@@ -44,6 +46,15 @@ public class AlchemyCategory implements HelpCategory {
     /** Reference to the InGameHelpRegistry. This will be necessary for determining what prefabs fall under this category. */
     private ItemsCategoryInGameHelpRegistry itemsCategoryInGameHelpRegistry;
 
+    /** The item prefabs that fall under this category, mapped by their names. */
+    private Map<String, Prefab> categoryPrefabs = Maps.newLinkedHashMap();
+
+    /** All the prefabs that have already been checked for whether they fall under this category. */
+    private Set<Prefab> checkedPrefabs = Sets.newHashSet();
+
+    /** Style of the item titles, created once. */
+    private TextRenderStyle titleRenderStyle;
+
     /**
      * Default constructor. Use this if you don't have an ItemsCategoryInGameHelpRegistry instance yet.
      */
@@ -71,77 +82,106 @@ public class AlchemyCategory implements HelpCategory {
     }
 
     /**
-     * Initialize the help document for Alchemy.
+     * Bring the list of items in this category up to date with the known prefabs. The root document is only rebuilt if
+     * an item was added or removed.
      */
-    private void initialise() {
-        // Set the title render and paragraph styles.
-        TextRenderStyle titleRenderStyle = new TextRenderStyle() {
-            @Override
-            public Font getFont(boolean hyperlink) {
-                return Assets.getFont("engine:NotoSans-Regular-Title").get();
-            }
-        };
-        ParagraphRenderStyle titleParagraphStyle = new ParagraphRenderStyle() {
-            @Override
-            public ContainerInteger getParagraphPaddingTop() {
-                return new FixedContainerInteger(5);
+    private void updateIndex() {
+        boolean changed = rootDocument == null;
+        Set<Prefab> knownPrefabs = Sets.newHashSet(itemsCategoryInGameHelpRegistry.getKnownPrefabs());
+
+        // Forget about the prefabs that are no longer known.
+        if (checkedPrefabs.retainAll(knownPrefabs)) {
+            changed |= categoryPrefabs.values().removeIf(prefab -> !checkedPrefabs.contains(prefab));
+            items.keySet().retainAll(categoryPrefabs.keySet());
+        }
+
+        // Check the newly known prefabs, and add the ones that fall under this category.
+        for (Prefab itemPrefab : knownPrefabs) {
+            if (checkedPrefabs.add(itemPrefab) && isInCategory(itemPrefab)) {
+                categoryPrefabs.put(itemPrefab.getName(), itemPrefab);
+                changed = true;
             }
-        };
+        }
 
+        if (changed) {
+            buildRootDocument();
+        }
+    }
+
+    /**
+     * Check whether the given prefab falls under this category.
+     *
+     * @param itemPrefab    The prefab to check.
+     * @return              True if the prefab's help component has the same category as this one. False otherwise.
+     */
+    private boolean isInCategory(Prefab itemPrefab) {
+        ItemHelpComponent helpComponent = itemPrefab.getComponent(ItemHelpComponent.class);
+        return helpComponent != null && getCategoryName().equalsIgnoreCase(helpComponent.getCategory());
+    }
+
+    /**
+     * Build the root document, listing all the items that fall under this category.
+     */
+    private void buildRootDocument() {
         // Create the root document and add the item list paragraph to it. This paragraph will contain all of the items
         // that fall under the Alchemy category. Specifically, links to the individual prefab help documents.
         rootDocument = new HTMLDocument(null);
         FlowParagraphData itemListParagraph = new FlowParagraphData(null);
         rootDocument.addParagraph(itemListParagraph);
 
-        // Iterate through all known prefabs to add all applicable prefabs to this document.
-        for (Prefab itemPrefab : itemsCategoryInGameHelpRegistry.getKnownPrefabs()) {
-            // Create a new HTML document for this prefab.
-            HTMLDocument documentData = new HTMLDocument(null);
-
-            // If this prefab doesn't this have an ItemHelpComponent, add one to it.
-            ItemHelpComponent helpComponent = itemPrefab.getComponent(ItemHelpComponent.class);
-            if (helpComponent == null) {
-                helpComponent = new ItemHelpComponent();
-                helpComponent.paragraphText.add("An unknown item.");
-            }
-
-            // Make sure this prefab's help category is the same as this one. Otherwise, don't add it to the Alchemy
-            // help documents list.
-            if (getCategoryName().equalsIgnoreCase(helpComponent.getCategory())) {
-                // Get the icon and name of this prefab, and add it to the document.
-                FlowParagraphData imageNameParagraph = new FlowParagraphData(null);
-                documentData.addParagraph(imageNameParagraph);
-                imageNameParagraph.append(new WidgetFlowRenderable(new ItemWidget(itemPrefab.getName()), 48, 48, itemPrefab.getName()));
-                DisplayNameComponent displayNameComponent = itemPrefab.getComponent(DisplayNameComponent.class);
-                if (displayNameComponent != null) {
-                    imageNameParagraph.append(new TextFlowRenderable(displayNameComponent.name, titleRenderStyle, null));
-                } else {
-                    imageNameParagraph.append(new TextFlowRenderable(itemPrefab.getName(), titleRenderStyle, null));
-                }
-
-                // Now, add a section for the related prefabs.
-                helpComponent.addHelpItemSection(documentData);
+        for (String prefabName : categoryPrefabs.keySet()) {
+            itemListParagraph.append(new WidgetFlowRenderable(new ItemWidget(prefabName), 48, 48, prefabName));
+        }
+    }
 
-                // Add all the other ones from components.
-                for (HelpItem helpItem : Iterables.filter(itemPrefab.iterateComponents(), HelpItem.class)) {
-                    if (helpItem != helpComponent) {
-                        helpItem.addHelpItemSection(documentData);
-                    }
+    /**
+     * Build the help document of a single item.
+     *
+     * @param itemPrefab    The prefab of the item.
+     * @return              The item's help document.
+     */
+    private DocumentData buildItemDocument(Prefab itemPrefab) {
+        // Set the title render style.
+        if (titleRenderStyle == null) {
+            titleRenderStyle = new TextRenderStyle() {
+                @Override
+                public Font getFont(boolean hyperlink) {
+                    return Assets.getFont("engine:NotoSans-Regular-Title").get();
                 }
+            };
+        }
 
-                // Add all the other ones from code registered HelpItems.
-                for (HelpItem helpItem : itemsCategoryInGameHelpRegistry.getHelpItems(itemPrefab)) {
-                    helpItem.addHelpItemSection(documentData);
-                }
+        // Create a new HTML document for this prefab.
+        HTMLDocument documentData = new HTMLDocument(null);
+        ItemHelpComponent helpComponent = itemPrefab.getComponent(ItemHelpComponent.class);
+
+        // Get the icon and name of this prefab, and add it to the document.
+        FlowParagraphData imageNameParagraph = new FlowParagraphData(null);
+        documentData.addParagraph(imageNameParagraph);
+        imageNameParagraph.append(new WidgetFlowRenderable(new ItemWidget(itemPrefab.getName()), 48, 48, itemPrefab.getName()));
+        DisplayNameComponent displayNameComponent = itemPrefab.getComponent(DisplayNameComponent.class);
+        if (displayNameComponent != null) {
+            imageNameParagraph.append(new TextFlowRenderable(displayNameComponent.name, titleRenderStyle, null));
+        } else {
+            imageNameParagraph.append(new TextFlowRenderable(itemPrefab.getName(), titleRenderStyle, null));
+        }
 
-                // Add this HTML document to the help documents list.
-                items.put(itemPrefab.getName(), documentData);
+        // Now, add a section for the related prefabs.
+        helpComponent.addHelpItemSection(documentData);
 
-                // Add this to the root document.
-                itemListParagraph.append(new WidgetFlowRenderable(new ItemWidget(itemPrefab.getName()), 48, 48, itemPrefab.getName()));
+        // Add all the other ones from components.
+        for (HelpItem helpItem : Iterables.filter(itemPrefab.iterateComponents(), HelpItem.class)) {
+            if (helpItem != helpComponent) {
+                helpItem.addHelpItemSection(documentData);
             }
         }
+
+        // Add all the other ones from code registered HelpItems.
+        for (HelpItem helpItem : itemsCategoryInGameHelpRegistry.getHelpItems(itemPrefab)) {
+            helpItem.addHelpItemSection(documentData);
+        }
+
+        return documentData;
     }
 
     /**
@@ -155,13 +195,13 @@ public class AlchemyCategory implements HelpCategory {
     }
 
     /**
-     * Get the document data for this category. If this category hasn't been initialized yet, then do so.
+     * Get the document data for this category. If the list of items in this category is out of date, then update it.
      *
      * @return  Either the root document if the current document is null, or the current document.
      */
     @Override
     public DocumentData getDocumentData() {
-        initialise();
+        updateIndex();
         if (currentDocument == null) {
             return rootDocument;
         } else {
@@ -178,22 +218,23 @@ public class AlchemyCategory implements HelpCategory {
     }
 
     /**
-     * Handle navigation between the top and sub-documents.
+     * Handle navigation between the top and sub-documents. The linked document is built the first time it's used.
      *
      * @param hyperlink     What document to navigate to.
      * @return              True if the document linked to exists. False if not.
      */
     @Override
     public boolean handleNavigate(String hyperlink) {
-        if (items.size() == 0) {
-            // Handle the case where we navigate before we have shown the screen.  There is probably a better way to do this.
-            initialise();
+        if (rootDocument == null) {
+            // Handle the case where we navigate before we have shown the screen.
+            updateIndex();
         }
 
         // If the document linked to by the hyperlink exists, navigate to that document page and return true.
         // Otherwise, return false.
-        if (items.containsKey(hyperlink)) {
-            currentDocument = items.get(hyperlink);
+        Prefab itemPrefab = categoryPrefabs.get(hyperlink);
+        if (itemPrefab != null) {
+            currentDocument = items.computeIfAbsent(hyperlink, key -> buildItemDocument(itemPrefab));
             return true;
         } else {
             return false;
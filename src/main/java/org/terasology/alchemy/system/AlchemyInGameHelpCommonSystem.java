@@ -2,33 +2,35 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.terasology.alchemy.system;
 
+import org.terasology.engine.entitySystem.entity.EntityRef;
 import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
 import org.terasology.engine.entitySystem.systems.RegisterSystem;
-import org.terasology.engine.entitySystem.systems.UpdateSubscriberSystem;
-import org.terasology.engine.logic.players.LocalPlayer;
-import org.terasology.engine.registry.CoreRegistry;
+import org.terasology.engine.logic.players.event.LocalPlayerInitializedEvent;
+import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
 import org.terasology.inGameHelpAPI.event.OnAddNewCategoryEvent;
 
 /**
  * This system is used to add the AlchemyCategory help category by sending it to the appropriate handler system over in
- * the InGameHelp module.
+ * the InGameHelp module. The help window only exists on clients, so this system only runs there.
  */
-@RegisterSystem
-public class AlchemyInGameHelpCommonSystem extends BaseComponentSystem implements UpdateSubscriberSystem {
-    /** Flag for checking if the category has been sent. */
-    boolean hasSent = false;
+@RegisterSystem(RegisterMode.CLIENT)
+public class AlchemyInGameHelpCommonSystem extends BaseComponentSystem {
+    /** Whether the AlchemyCategory has already been sent. */
+    private boolean categoryAdded;
 
     /**
-     * Update the system. Though in this case, only once.
+     * Once the local player's client entity exists, create a new instance of the AlchemyCategory and send it through an
+     * event. This only happens once, even if the local player is initialized again.
      *
-     * @param delta     Time between this and the last update.
+     * @param event     The event sent once the local player has been set up.
+     * @param client    The local player's client entity.
      */
-    @Override
-    public void update(float delta) {
-        // Create a new instance of the AlchemyCategory and send it through an event once.
-        if (!hasSent) {
-            CoreRegistry.get(LocalPlayer.class).getClientEntity().send(new OnAddNewCategoryEvent(new AlchemyCategory()));
-            hasSent = true;
+    @ReceiveEvent
+    public void onLocalPlayerInitialized(LocalPlayerInitializedEvent event, EntityRef client) {
+        if (!categoryAdded) {
+            client.send(new OnAddNewCategoryEvent(new AlchemyCategory()));
+            categoryAdded = true;
         }
     }
 }
@@ -0,0 +1,175 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.alchemy.system;
+
+import com.google.common.collect.Maps;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.BeforeDeactivateComponent;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnChangedComponent;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.logic.inventory.ItemComponent;
+import org.terasology.engine.registry.Share;
+import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
+import org.terasology.module.inventory.components.InventoryComponent;
+import org.terasology.module.inventory.events.InventorySlotChangedEvent;
+import org.terasology.module.inventory.events.InventorySlotStackSizeChangedEvent;
+import org.terasology.module.inventory.systems.InventoryUtils;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * This system keeps track of a change version for each inventory, and of the version at which each slot last changed.
+ * Recipes can use this to only re-evaluate the inventory slots that changed since they last looked.
+ * <p>
+ * Besides the slot events, inventory and item component changes are tracked as well. On clients, changes made by the
+ * server only arrive as replicated components, without any slot events.
+ */
+@RegisterSystem
+@Share(InventoryVersionSystem.class)
+public class InventoryVersionSystem extends BaseComponentSystem {
+    /** Inventory change versions of all of the tracked entities. */
+    private Map<EntityRef, InventoryVersion> versions = Maps.newHashMap();
+
+    /**
+     * The last version handed out. This is shared by all inventories, so an inventory that stops being tracked and is
+     * tracked again later never goes back to a version that was already seen.
+     */
+    private long lastVersion;
+
+    /**
+     * When an item in an inventory slot is replaced, mark that slot as changed.
+     *
+     * @param event     Details of the changed slot.
+     * @param entity    The entity owning the inventory.
+     */
+    @ReceiveEvent(components = InventoryComponent.class)
+    public void onSlotChanged(InventorySlotChangedEvent event, EntityRef entity) {
+        getInventoryVersion(entity).markChanged(event.getSlot(), ++lastVersion);
+    }
+
+    /**
+     * When the stack size in an inventory slot changes, mark that slot as changed.
+     *
+     * @param event     Details of the changed slot.
+     * @param entity    The entity owning the inventory.
+     */
+    @ReceiveEvent(components = InventoryComponent.class)
+    public void onStackSizeChanged(InventorySlotStackSizeChangedEvent event, EntityRef entity) {
+        getInventoryVersion(entity).markChanged(event.getSlot(), ++lastVersion);
+    }
+
+    /**
+     * When an inventory component is changed as a whole, for example when it's replicated from the server, mark all of
+     * its slots as changed.
+     *
+     * @param event     Details of the change.
+     * @param entity    The entity owning the inventory.
+     */
+    @ReceiveEvent(components = InventoryComponent.class)
+    public void onInventoryChanged(OnChangedComponent event, EntityRef entity) {
+        getInventoryVersion(entity).markAllChanged(++lastVersion);
+    }
+
+    /**
+     * When an item inside an inventory changes, for example when its stack size is replicated from the server, mark the
+     * slot holding it as changed.
+     *
+     * @param event     Details of the change.
+     * @param item      The changed item.
+     */
+    @ReceiveEvent(components = ItemComponent.class)
+    public void onItemChanged(OnChangedComponent event, EntityRef item) {
+        EntityRef owner = item.getOwner();
+        if (!owner.hasComponent(InventoryComponent.class)) {
+            return;
+        }
+
+        final int slot = InventoryUtils.getSlotWithItem(owner, item);
+        if (slot >= 0) {
+            getInventoryVersion(owner).markChanged(slot, ++lastVersion);
+        } else {
+            getInventoryVersion(owner).markAllChanged(++lastVersion);
+        }
+    }
+
+    /**
+     * Stop tracking inventories that are being removed from the world.
+     *
+     * @param event     Details of the deactivation.
+     * @param entity    The entity being deactivated.
+     */
+    @ReceiveEvent(components = InventoryComponent.class)
+    public void onInventoryDeactivated(BeforeDeactivateComponent event, EntityRef entity) {
+        versions.remove(entity);
+    }
+
+    /**
+     * Get the current inventory change version of the given entity.
+     *
+     * @param entity    The entity owning the inventory.
+     * @return          The current version. This only increases, and is 0 for an inventory that hasn't changed yet.
+     */
+    public long getVersion(EntityRef entity) {
+        InventoryVersion version = versions.get(entity);
+        return version != null ? version.version : 0;
+    }
+
+    /**
+     * Check whether the given inventory slot of an entity has changed since the given version.
+     *
+     * @param entity        The entity owning the inventory.
+     * @param slot          The inventory slot to check.
+     * @param sinceVersion  The version to compare with.
+     * @return              True if the slot changed after the given version, or if that is unknown. False otherwise.
+     */
+    public boolean hasSlotChanged(EntityRef entity, int slot, long sinceVersion) {
+        InventoryVersion version = versions.get(entity);
+        if (version == null) {
+            return false;
+        }
+        // Changes made before the inventory was last tracked are unknown, so the slot has to be assumed as changed.
+        return sinceVersion < version.trackedSince || sinceVersion < version.allChangedAt
+                || version.getSlotVersion(slot) > sinceVersion;
+    }
+
+    private InventoryVersion getInventoryVersion(EntityRef entity) {
+        return versions.computeIfAbsent(entity, key -> new InventoryVersion(lastVersion));
+    }
+
+    /**
+     * The change version of a single inventory, along with the version at which each of its slots last changed.
+     */
+    private static final class InventoryVersion {
+        /** The last version that was handed out before this inventory started being tracked. */
+        private final long trackedSince;
+
+        private long version;
+        private long[] slotVersions = new long[0];
+
+        /** The last version at which every slot was marked as changed at once. */
+        private long allChangedAt;
+
+        private InventoryVersion(long trackedSince) {
+            this.trackedSince = trackedSince;
+        }
+
+        private void markChanged(int slot, long newVersion) {
+            version = newVersion;
+            if (slot >= slotVersions.length) {
+                slotVersions = Arrays.copyOf(slotVersions, slot + 1);
+            }
+            slotVersions[slot] = version;
+        }
+
+        private void markAllChanged(long newVersion) {
+            version = newVersion;
+            allChangedAt = newVersion;
+        }
+
+        private long getSlotVersion(int slot) {
+            return slot < slotVersions.length ? slotVersions[slot] : 0;
+        }
+    }
+}
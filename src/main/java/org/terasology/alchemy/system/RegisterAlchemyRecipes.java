@@ -3,25 +3,42 @@
 package org.terasology.alchemy.system;
 
 import com.google.common.base.Predicate;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.terasology.alchemy.Alchemy;
 import org.terasology.gestalt.assets.ResourceUrn;
 import org.terasology.engine.entitySystem.entity.EntityManager;
 import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnActivatedComponent;
+import org.terasology.engine.entitySystem.event.EventPriority;
+import org.terasology.engine.entitySystem.event.Priority;
 import org.terasology.engine.entitySystem.prefab.Prefab;
 import org.terasology.engine.entitySystem.prefab.PrefabManager;
 import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
 import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.logic.console.commandSystem.annotations.Command;
+import org.terasology.engine.logic.permission.PermissionManager;
 import org.terasology.engine.registry.In;
+import org.terasology.engine.utilities.Assets;
 import org.terasology.engine.world.block.BlockManager;
 import org.terasology.engine.world.block.BlockUri;
+import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
+import org.terasology.herbalism.ResolvedPrefabCache;
 import org.terasology.herbalism.component.HerbalismStationRecipeComponent;
+import org.terasology.herbalism.system.HerbalismRecipeIndex;
 import org.terasology.herbalism.ui.HerbalismCraftingStationRecipe;
+import org.terasology.herbalism.ui.ReloadableHerbalismRecipe;
 import org.terasology.multiBlock.Basic2DSizeFilter;
 import org.terasology.multiBlock.BlockUriEntityFilter;
 import org.terasology.multiBlock.MultiBlockFormRecipeRegistry;
 import org.terasology.multiBlock.recipe.LayeredMultiBlockFormItemRecipe;
+import org.terasology.potions.component.EmptyPotionComponent;
 import org.terasology.processing.system.AnyActivityFilter;
 import org.terasology.processing.system.ToolTypeEntityFilter;
+import org.terasology.workstation.component.WorkstationComponent;
 import org.terasology.workstation.system.WorkstationRegistry;
 import org.terasology.workstationCrafting.component.CraftingStationMaterialComponent;
 import org.terasology.workstationCrafting.component.CraftingStationRecipeComponent;
@@ -29,11 +46,20 @@ import org.terasology.workstationCrafting.system.CraftInHandRecipeRegistry;
 import org.terasology.workstationCrafting.system.CraftingWorkstationProcess;
 import org.terasology.workstationCrafting.system.CraftingWorkstationProcessFactory;
 
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * This system registers all of the Alchemy recipes in this module.
  */
 @RegisterSystem
 public class RegisterAlchemyRecipes extends BaseComponentSystem {
+    private static final Logger logger = LoggerFactory.getLogger(RegisterAlchemyRecipes.class);
+
     @In
     private CraftInHandRecipeRegistry recipeRegistry;
     @In
@@ -46,6 +72,23 @@ public class RegisterAlchemyRecipes extends BaseComponentSystem {
     private PrefabManager prefabManager;
     @In
     private EntityManager entityManager;
+    @In
+    private HerbalismRecipeIndex recipeIndex;
+
+    /** Whether the HerbalismStation recipes have been built and registered. */
+    private boolean herbalismRecipesRegistered;
+
+    /** The registered HerbalismStation recipes, mapped by the URN of their recipe prefab. */
+    private Map<ResourceUrn, RegisteredRecipe> registeredRecipes = Maps.newHashMap();
+
+    /**
+     * The recipes behind every registered HerbalismStation process, mapped by process ID. The WorkstationRegistry can't
+     * unregister or replace a process, so a reloaded recipe is swapped in behind its existing process instead.
+     */
+    private Map<String, ReloadableHerbalismRecipe> herbalismProcesses = Maps.newHashMap();
+
+    /** Prefabs resolved while building the HerbalismStation recipes. */
+    private ResolvedPrefabCache prefabCache = new ResolvedPrefabCache();
 
     /**
      * Initialization phase where all of the recipes are added.
@@ -60,6 +103,14 @@ public class RegisterAlchemyRecipes extends BaseComponentSystem {
         addHerbalismWorkstationRecipes();
     }
 
+    /**
+     * Forget the prefabs resolved for the recipes, so none of them outlive the game they were resolved in.
+     */
+    @Override
+    public void shutdown() {
+        prefabCache.clear();
+    }
+
     /**
      * Add the recipe for building the Herbalism Station.
      */
@@ -74,24 +125,265 @@ public class RegisterAlchemyRecipes extends BaseComponentSystem {
     }
 
     /**
-     * Add all of the potion recipes to the HerbalismStation.
+     * Add all of the potion recipes to the HerbalismStation. The recipes themselves are only built once the first
+     * HerbalismStation is used, as building them requires resolving all of the prefabs they refer to.
      */
     private void addHerbalismWorkstationRecipes() {
         // TODO: Temporarily removed for sake of testing.
         /* workstationRegistry.registerProcess(WorkstationCrafting.HERBALISM_PROCESS_TYPE,
                 new CraftingWorkstationProcess(WorkstationCrafting.HERBALISM_PROCESS_TYPE,
                 "WorkstationCrafting:HerbPotion", new HerbalismCraftingStationRecipe()));*/
+    }
+
+    /**
+     * When a workstation that supports the herbalism process becomes active, make sure the potion recipes have been
+     * registered. This runs before other systems, so that any process in progress on the station can be resumed.
+     *
+     * @param event         Details of the component activation.
+     * @param station       The workstation entity.
+     * @param workstation   The workstation's component, containing its supported process types.
+     */
+    @Priority(EventPriority.PRIORITY_CRITICAL)
+    @ReceiveEvent
+    public void onWorkstationActivated(OnActivatedComponent event, EntityRef station, WorkstationComponent workstation) {
+        if (!herbalismRecipesRegistered && workstation.supportedProcessTypes.containsKey(Alchemy.HERBALISM_PROCESS_TYPE)) {
+            registerAllHerbalismRecipes();
+        }
+    }
+
+    /**
+     * Build and register the workstation processes of all the recipes marked with "HerbalismStationRecipeComponent" in
+     * their prefabs.
+     */
+    private void registerAllHerbalismRecipes() {
+        long startTime = System.nanoTime();
+
+        Collection<Prefab> prefabs = prefabManager.listPrefabs(HerbalismStationRecipeComponent.class);
+        for (Prefab prefab : prefabs) {
+            registerHerbalismRecipes(prefab);
+        }
+
+        logger.debug("Registered {} herbalism recipes in {} ms", prefabs.size(),
+                (System.nanoTime() - startTime) / 1000000);
+        herbalismRecipesRegistered = true;
+    }
+
+    /**
+     * Reload the HerbalismStation recipes after their prefabs were changed, so brews can be tuned without a restart.
+     * This only runs on the node it's typed on, so it has to be run on the server as well as on each client that
+     * should show the new recipes.
+     *
+     * @return  A summary of the recipes that were added, reloaded and removed.
+     */
+    @Command(shortDescription = "Reload the herbalism station recipes whose prefabs changed",
+            requiredPermission = PermissionManager.DEBUG_PERMISSION)
+    public String reloadHerbalismRecipes() {
+        if (!herbalismRecipesRegistered) {
+            return "No herbalism station has been used yet, so no recipes have been registered to reload.";
+        }
+        return updateHerbalismRecipes();
+    }
+
+    /**
+     * Register the recipes of new potion recipe prefabs, replace the recipes of changed ones, and retire the recipes of
+     * removed ones. A recipe counts as changed if its prefab changed, or if any of the prefabs it refers to did. The
+     * recipes of unchanged prefabs are left alone.
+     *
+     * @return  A summary of the recipes that were added, reloaded and removed.
+     */
+    private String updateHerbalismRecipes() {
+        // Recipes built from prefabs that were since replaced or disposed must be rebuilt, even if nothing else changed.
+        Set<String> changedPrefabs = prefabCache.invalidateChanged();
+
+        int added = 0;
+        int reloaded = 0;
+        int removed = 0;
 
-        // Add all the recipes marked with "HerbalismStationRecipeComponent" in their prefabs and add them to the list.
+        Set<ResourceUrn> currentPrefabs = Sets.newHashSet();
         for (Prefab prefab : prefabManager.listPrefabs(HerbalismStationRecipeComponent.class)) {
-            // Get the Crafting Station recipe component of this recipe prefab.
-            CraftingStationRecipeComponent recipeComponent = prefab.getComponent(CraftingStationRecipeComponent.class);
-
-            // We individually register each process instead of using registerProcessFactory (with CraftingWorkstationProcessFactory)
-            // as we need to add in some custom actions. The createProcess method in CraftingWorkstationProcessFactory won't do.
-            workstationRegistry.registerProcess(Alchemy.HERBALISM_PROCESS_TYPE,
-                    new CraftingWorkstationProcess(Alchemy.HERBALISM_PROCESS_TYPE, recipeComponent.recipeId,
-                            new HerbalismCraftingStationRecipe(recipeComponent), prefab, entityManager));
+            currentPrefabs.add(prefab.getUrn());
+
+            RegisteredRecipe registered = registeredRecipes.get(prefab.getUrn());
+            if (registered == null) {
+                logger.info("Adding herbalism recipe {}", prefab.getUrn());
+                registerHerbalismRecipes(prefab);
+                added++;
+            } else if (!registered.signature.equals(getRecipeSignature(prefab))
+                    || registered.refersToAny(changedPrefabs)) {
+                logger.info("Reloading herbalism recipe {}", prefab.getUrn());
+                retireHerbalismRecipes(registered);
+                registerHerbalismRecipes(prefab);
+                reloaded++;
+            }
+        }
+
+        Iterator<Map.Entry<ResourceUrn, RegisteredRecipe>> iterator = registeredRecipes.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<ResourceUrn, RegisteredRecipe> entry = iterator.next();
+            if (!currentPrefabs.contains(entry.getKey())) {
+                logger.info("Removing herbalism recipe {}", entry.getKey());
+                retireHerbalismRecipes(entry.getValue());
+                iterator.remove();
+                removed++;
+            }
+        }
+
+        return String.format("Herbalism recipes: %d added, %d reloaded, %d removed", added, reloaded, removed);
+    }
+
+    /**
+     * Build and register the workstation processes of a single potion recipe prefab, including its batch variants.
+     *
+     * @param prefab    The recipe prefab.
+     */
+    private void registerHerbalismRecipes(Prefab prefab) {
+        // Get the Crafting Station recipe component of this recipe prefab.
+        CraftingStationRecipeComponent recipeComponent = prefab.getComponent(CraftingStationRecipeComponent.class);
+        if (recipeComponent == null) {
+            return;
+        }
+
+        RegisteredRecipe registered = new RegisteredRecipe(getRecipeSignature(prefab));
+        registered.prefabUris.addAll(getReferencedPrefabs(recipeComponent));
+
+        registerHerbalismRecipe(prefab,
+                HerbalismCraftingStationRecipe.getProcessId(recipeComponent.recipeId, 1),
+                new HerbalismCraftingStationRecipe(recipeComponent, prefabCache), registered);
+
+        // Register a separate process for each batch size, so that many potions can be brewed by a single process.
+        for (int batchSize : prefab.getComponent(HerbalismStationRecipeComponent.class).batchSizes) {
+            if (batchSize > 1) {
+                registerHerbalismRecipe(prefab,
+                        HerbalismCraftingStationRecipe.getProcessId(recipeComponent.recipeId, batchSize),
+                        new HerbalismCraftingStationRecipe(recipeComponent, batchSize, prefabCache), registered);
+            }
+        }
+        registeredRecipes.put(prefab.getUrn(), registered);
+    }
+
+    /**
+     * Index a single potion recipe and register it as a HerbalismStation process. If a process with the same ID was
+     * registered before, the recipe replaces the one behind it instead.
+     *
+     * @param prefab        The recipe prefab.
+     * @param processId     Unique ID of the process.
+     * @param recipe        The recipe to register.
+     * @param registered    The registration details of the recipe prefab, which the recipe is added to.
+     */
+    private void registerHerbalismRecipe(Prefab prefab, String processId, HerbalismCraftingStationRecipe recipe,
+                                         RegisteredRecipe registered) {
+        // Index the recipe by its ingredients, so stations only evaluate the recipes they could possibly match.
+        recipeIndex.addRecipe(recipe);
+        registered.recipes.add(recipe);
+
+        ReloadableHerbalismRecipe process = herbalismProcesses.get(processId);
+        if (process != null) {
+            process.setRecipe(recipe);
+            return;
+        }
+        process = new ReloadableHerbalismRecipe(recipe);
+        herbalismProcesses.put(processId, process);
+
+        // We individually register each process instead of using registerProcessFactory (with
+        // CraftingWorkstationProcessFactory) as we need to add in some custom actions. The createProcess method in
+        // CraftingWorkstationProcessFactory won't do.
+        workstationRegistry.registerProcess(Alchemy.HERBALISM_PROCESS_TYPE,
+                new CraftingWorkstationProcess(Alchemy.HERBALISM_PROCESS_TYPE, processId, process, prefab, entityManager));
+    }
+
+    /**
+     * Take the recipes of a potion recipe prefab out of use. The WorkstationRegistry has no way of unregistering a
+     * process, so the recipes are removed from the recipe index instead, which stops stations from ever matching them.
+     * They stay behind their processes, so brews that are already running can still finish, until a reloaded recipe
+     * with the same process ID replaces them.
+     *
+     * @param registered    The registration details of the recipe prefab.
+     */
+    private void retireHerbalismRecipes(RegisteredRecipe registered) {
+        for (HerbalismCraftingStationRecipe recipe : registered.recipes) {
+            recipeIndex.removeRecipe(recipe);
+        }
+        for (String prefabUri : registered.prefabUris) {
+            prefabCache.invalidate(prefabUri);
+        }
+    }
+
+    /**
+     * Get a summary of all the values that the HerbalismStation recipes are built from, used to detect changes. Besides
+     * the recipe prefab's own values, this covers whether each prefab the recipe refers to exists, which instance it
+     * is, and whether it's an empty potion container.
+     *
+     * @param prefab    The recipe prefab.
+     * @return          The recipe's signature.
+     */
+    private static String getRecipeSignature(Prefab prefab) {
+        CraftingStationRecipeComponent recipe = prefab.getComponent(CraftingStationRecipeComponent.class);
+        HerbalismStationRecipeComponent herbalismRecipe = prefab.getComponent(HerbalismStationRecipeComponent.class);
+        if (recipe == null) {
+            return "";
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(recipe.recipeId).append(';').append(recipe.recipeComponents).append(';')
+                .append(recipe.requiredTemperature).append(';').append(recipe.processingDuration).append(';')
+                .append(recipe.itemResult).append(';').append(herbalismRecipe.batchSizes);
+        for (String prefabUri : getReferencedPrefabs(recipe)) {
+            Prefab referenced = Assets.getPrefab(prefabUri).orElse(null);
+            sb.append(';').append(prefabUri).append('=');
+            if (referenced == null) {
+                sb.append('-');
+            } else {
+                sb.append(System.identityHashCode(referenced))
+                        .append(referenced.hasComponent(EmptyPotionComponent.class) ? 'E' : 'P');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Get the URIs of the prefabs a recipe refers to, which are resolved while the recipe is built.
+     *
+     * @param recipe    The recipe's component.
+     * @return          The URIs of the brewed potion and of all the ingredients.
+     */
+    private static List<String> getReferencedPrefabs(CraftingStationRecipeComponent recipe) {
+        List<String> prefabUris = Lists.newArrayList(recipe.recipeId);
+        for (String component : recipe.recipeComponents) {
+            prefabUris.add(component.split("\\*")[1]);
+        }
+        return prefabUris;
+    }
+
+    /**
+     * This internal class is used to store the recipes registered for a single potion recipe prefab.
+     */
+    private static final class RegisteredRecipe {
+        /** Signature of the recipe prefab at the time it was registered. */
+        private final String signature;
+
+        /** The recipe and its batch variants. */
+        private final List<HerbalismCraftingStationRecipe> recipes = Lists.newArrayList();
+
+        /** URIs of the prefabs the recipes resolved while being built. */
+        private final List<String> prefabUris = Lists.newArrayList();
+
+        private RegisteredRecipe(String signature) {
+            this.signature = signature;
+        }
+
+        /**
+         * Check whether the recipes were built from any of the given prefabs.
+         *
+         * @param lowerCasePrefabUris   Lower case URIs of the prefabs.
+         * @return                      True if any of the prefabs was resolved for these recipes. False otherwise.
+         */
+        private boolean refersToAny(Set<String> lowerCasePrefabUris) {
+            for (String prefabUri : prefabUris) {
+                if (lowerCasePrefabUris.contains(prefabUri.toLowerCase(Locale.ROOT))) {
+                    return true;
+                }
+            }
+            return false;
         }
     }
 
@@ -3,6 +3,9 @@
 package org.terasology.alchemy.system;
 
 import com.google.common.base.Predicate;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.terasology.anotherWorldPlants.farm.component.SeedComponent;
 import org.terasology.engine.entitySystem.entity.EntityManager;
 import org.terasology.engine.entitySystem.entity.EntityRef;
@@ -14,9 +17,12 @@ import org.terasology.engine.utilities.Assets;
 import org.terasology.engine.world.block.Block;
 import org.terasology.genome.component.GenomeComponent;
 import org.terasology.genome.system.GenomeManager;
+import org.terasology.herbalism.HerbGenomeInterner;
+import org.terasology.herbalism.HerbParameter;
 import org.terasology.herbalism.Herbalism;
 import org.terasology.herbalism.component.HerbComponent;
 import org.terasology.herbalism.system.HerbalismClientSystem;
+import org.terasology.module.inventory.systems.InventoryUtils;
 import org.terasology.nui.widgets.TooltipLine;
 import org.terasology.workstationCrafting.system.recipe.behaviour.ConsumeItemCraftBehaviour;
 import org.terasology.workstationCrafting.system.recipe.behaviour.IngredientCraftBehaviour;
@@ -26,9 +32,13 @@ import org.terasology.workstationCrafting.system.recipe.hand.CraftInHandRecipe;
 import org.terasology.workstationCrafting.system.recipe.hand.PlayerInventorySlotResolver;
 import org.terasology.workstationCrafting.system.recipe.render.CraftIngredientRenderer;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * A custom recipe format for seeding herb related recipes. Specifically for crafting herb seeds.
@@ -41,29 +51,93 @@ public class SeedingHerbRecipe implements CraftInHandRecipe {
     /** Define a herb consumption behavior. */
     private static final ConsumeHerbBehaviour HERB_BEHAVIOUR = new ConsumeHerbBehaviour();
 
+    /** Previously matched recipe results for each character, along with the inventory version they were computed at. */
+    private Map<EntityRef, CachedMatches> matchCache = Maps.newHashMap();
+
     /**
-     * Get a list of matching recipes for this character.
+     * Get a list of matching recipes for this character. Identical herbs spread over several slots make up a single
+     * recipe. The results are cached, and only the herbs in inventory slots that changed since the last call are
+     * evaluated again.
      *
      * @param character     The character entity that'll be doing the crafting.
      * @return              A list containing all matching seed recipe results.
      */
     @Override
     public List<CraftInHandResult> getMatchingRecipeResults(EntityRef character) {
-        // If no knife parameter exists for this character, return null.
-        String knifeParameter = getKnifeParameter(character);
-        if (knifeParameter == null) {
-            return null;
+        final InventoryVersionSystem inventoryVersions = CoreRegistry.get(InventoryVersionSystem.class);
+        final long version = inventoryVersions.getVersion(character);
+
+        CachedMatches cached = matchCache.get(character);
+        if (cached == null) {
+            // Forget about characters that no longer exist before adding a new one.
+            matchCache.keySet().removeIf(entity -> !entity.exists());
+            cached = new CachedMatches();
+            matchCache.put(character, cached);
+        } else if (cached.version == version) {
+            return cached.copyResults();
         }
 
-        List<CraftInHandResult> results = new LinkedList<>();
+        // If the version went backwards, the inventory is no longer the one that was cached. Evaluate everything again.
+        final boolean refreshAll = cached.version < 0 || version < cached.version;
+
+        // If the knife changed, every result has to be recreated. The herb parameters can still be reused though.
+        final String knifeParameter = getKnifeParameter(character);
+        final boolean knifeChanged = knifeParameter == null ? cached.knifeParameter != null
+                : !knifeParameter.equals(cached.knifeParameter);
+        cached.knifeParameter = knifeParameter;
+
+        // Look up the herbs in the slots that changed, and group the herbs that could be stacked together.
+        final Set<Integer> changedSlots = Sets.newHashSet();
+        final List<List<Integer>> herbGroups = Lists.newArrayList();
+        for (int slot : PlayerInventorySlotResolver.singleton().getSlots(character)) {
+            cached.ensureCapacity(slot);
+            if (refreshAll || inventoryVersions.hasSlotChanged(character, slot, cached.version)) {
+                cached.herbs[slot] = HERB_BEHAVIOUR.getHerbAt(character, slot);
+                changedSlots.add(slot);
+            }
+            if (cached.herbs[slot] != null) {
+                addToGroup(herbGroups, cached.herbs, slot);
+            }
+        }
 
-        // Construct the list of applicable recipes. These must fulfill both the herb and knife behaviors.
-        final List<String> herbParameters = HERB_BEHAVIOUR.getValidToCraft(character, 1);
-        for (String herbParameter : herbParameters) {
-            results.add(new Result(Arrays.asList(knifeParameter, herbParameter)));
+        // Construct the applicable recipe for each group of herbs. It must fulfill both the herb and knife behaviors.
+        // Groups whose slots are all unchanged keep their previous herb parameter, and their result if the knife didn't
+        // change either.
+        final Map<List<Integer>, Result> results = Maps.newLinkedHashMap();
+        if (knifeParameter != null) {
+            for (List<Integer> slots : herbGroups) {
+                Result result = Collections.disjoint(slots, changedSlots) ? cached.results.get(slots) : null;
+                if (result == null) {
+                    String herbParameter = HERB_BEHAVIOUR.getGroupParameter(slots, cached.herbs[slots.get(0)]);
+                    result = new Result(Arrays.asList(knifeParameter, herbParameter));
+                } else if (knifeChanged) {
+                    result = new Result(Arrays.asList(knifeParameter, result.getParameters().get(1)));
+                }
+                results.put(slots, result);
+            }
         }
+        cached.results = results;
+        cached.version = version;
 
-        return results;
+        return cached.copyResults();
+    }
+
+    /**
+     * Add a herb to the group of herbs it could be stacked with, or start a new group if there's none. This matches how
+     * ConsumeItemCraftBehaviour groups identical items spread over several slots.
+     *
+     * @param groups    The groups of slots holding identical herbs.
+     * @param herbs     The herb in each inventory slot, or null if the slot doesn't hold one.
+     * @param slot      The inventory slot of the herb to add.
+     */
+    private static void addToGroup(List<List<Integer>> groups, EntityRef[] herbs, int slot) {
+        for (List<Integer> group : groups) {
+            if (InventoryUtils.isSameItem(herbs[group.get(0)], herbs[slot])) {
+                group.add(slot);
+                return;
+            }
+        }
+        groups.add(Lists.newArrayList(slot));
     }
 
     /**
@@ -91,6 +165,41 @@ public class SeedingHerbRecipe implements CraftInHandRecipe {
         return new Result(parameters);
     }
 
+    /**
+     * This internal class is used to store the matched recipe results of a single character.
+     */
+    private static final class CachedMatches {
+        /** Inventory version these matches were computed at. Negative if they haven't been computed yet. */
+        private long version = -1;
+
+        /** Parameter of the knife used by the results. */
+        private String knifeParameter;
+
+        /** Herb in each inventory slot, or null if the slot doesn't contain a herb. */
+        private EntityRef[] herbs = new EntityRef[0];
+
+        /** Recipe results mapped by the slots holding their herbs. */
+        private Map<List<Integer>, Result> results = Maps.newLinkedHashMap();
+
+        private void ensureCapacity(int slot) {
+            if (slot >= herbs.length) {
+                herbs = Arrays.copyOf(herbs, slot + 1);
+            }
+        }
+
+        /**
+         * Copy the cached results into a new list, so callers can't modify the cached ones.
+         *
+         * @return  A list of the matching results, or null if there's no knife to craft with.
+         */
+        private List<CraftInHandResult> copyResults() {
+            if (knifeParameter == null) {
+                return null;
+            }
+            return new ArrayList<>(results.values());
+        }
+    }
+
     /**
      * This internal class is used to define the specific crafting result for the seeding herb recipe.
      */
@@ -98,6 +207,9 @@ public class SeedingHerbRecipe implements CraftInHandRecipe {
         /** List of recipe parameters required to make this result. */
         private List<String> parameters;
 
+        /** The herb parameter of this result, parsed once from the parameters list. */
+        private HerbParameter herbParameter;
+
         /** List of ingredient renderers */
         private List<CraftIngredientRenderer> renderers;
 
@@ -108,6 +220,7 @@ public class SeedingHerbRecipe implements CraftInHandRecipe {
          */
         private Result(List<String> parameters) {
             this.parameters = parameters;
+            this.herbParameter = HerbParameter.parse(parameters.get(1));
         }
 
         /**
@@ -157,9 +270,7 @@ public class SeedingHerbRecipe implements CraftInHandRecipe {
             final GenomeManager genomeManager = CoreRegistry.get(GenomeManager.class);
 
             // Attach a new genome to the herb seed.
-            GenomeComponent genomeComponent = new GenomeComponent();
-            genomeComponent.genomeId = "Herbalism:Herb";
-            genomeComponent.genes = HERB_BEHAVIOUR.getSeedGenome(parameters.get(1));
+            GenomeComponent genomeComponent = HerbGenomeInterner.createGenome("Herbalism:Herb", herbParameter.getGenes());
             herbSeed.addComponent(genomeComponent);
 
             // Add a seed component to the herb seed.
@@ -169,8 +280,7 @@ public class SeedingHerbRecipe implements CraftInHandRecipe {
 
             // Replace the icon with a seed bag image.
             ItemComponent itemComponent = herbSeed.getComponent(ItemComponent.class);
-            itemComponent.icon = Assets.getTextureRegion("AnotherWorldPlants:SeedBag(" + HERB_BEHAVIOUR
-                    .getHerbIconUri(parameters.get(1)) + ")").get();
+            itemComponent.icon = Assets.getTextureRegion("AnotherWorldPlants:SeedBag(" + herbParameter.getIconUri() + ")").get();
             herbSeed.saveComponent(itemComponent);
 
             return herbSeed;
@@ -240,10 +350,9 @@ public class SeedingHerbRecipe implements CraftInHandRecipe {
          */
         @Override
         public void setupResultDisplay(ItemIcon itemIcon) {
-            itemIcon.setIcon(Assets.getTextureRegion("AnotherWorldPlants:SeedBag(" + HERB_BEHAVIOUR
-                    .getHerbIconUri(parameters.get(1)) + ")").get());
+            itemIcon.setIcon(Assets.getTextureRegion("AnotherWorldPlants:SeedBag(" + herbParameter.getIconUri() + ")").get());
             itemIcon.setTooltipLines(Arrays.asList(new TooltipLine("Herb Seed"), HerbalismClientSystem
-                    .getHerbTooltipLine(HERB_BEHAVIOUR.getHerbName(parameters.get(1)))));
+                    .getHerbTooltipLine(herbParameter.getHerbName())));
         }
     }
 
@@ -251,22 +360,51 @@ public class SeedingHerbRecipe implements CraftInHandRecipe {
      * This internal class is used to define the custom consumption behavior of herbs during crafting.
      */
     private static class ConsumeHerbBehaviour extends ConsumeItemCraftBehaviour {
+        /** Filter for items that can be consumed by this behavior. */
+        private static final Predicate<EntityRef> HERB_MATCHER = new Predicate<EntityRef>() {
+            /**
+             * Apply an entity to this filter to see if it's an herb and if it has a genome.
+             *
+             * @param input    Reference to the entity being checked.
+             * @return         True if the entity fulfills the above conditions. False if not.
+             */
+            @Override
+            public boolean apply(EntityRef input) {
+                return input.hasComponent(HerbComponent.class) && input.hasComponent(GenomeComponent.class);
+            }
+        };
+
         /**
          * Constructor which sets up the predicate or filter of this craft behavior.
          */
         public ConsumeHerbBehaviour() {
-            super(new Predicate<EntityRef>() {
-                /**
-                 * Apply an entity to this filter to see if it's an herb and if it has a genome.
-                 *
-                 * @param input    Reference to the entity being checked.
-                 * @return         True if the entity fulfills the above conditions. False if not.
-                 */
-                @Override
-                public boolean apply(EntityRef input) {
-                    return input.hasComponent(HerbComponent.class) && input.hasComponent(GenomeComponent.class);
-                }
-            }, 1, PlayerInventorySlotResolver.singleton());
+            super(HERB_MATCHER, 1, PlayerInventorySlotResolver.singleton());
+        }
+
+        /**
+         * Get the herb in a single inventory slot.
+         *
+         * @param character     The character entity that has the inventory.
+         * @param slot          The inventory slot to check.
+         * @return              The herb item, or null if the slot doesn't contain a herb.
+         */
+        public EntityRef getHerbAt(EntityRef character, int slot) {
+            EntityRef item = InventoryUtils.getItemAt(character, slot);
+            if (!HERB_MATCHER.apply(item) || InventoryUtils.getStackCount(item) < 1) {
+                return null;
+            }
+            return item;
+        }
+
+        /**
+         * Get the ingredient parameter of a group of identical herbs.
+         *
+         * @param slots     The inventory slots holding the herbs.
+         * @param item      One of the herbs.
+         * @return          The ingredient parameter covering all of the slots.
+         */
+        public String getGroupParameter(List<Integer> slots, EntityRef item) {
+            return getParameter(slots, item);
         }
 
         /**
@@ -277,7 +415,7 @@ public class SeedingHerbRecipe implements CraftInHandRecipe {
          */
         @Override
         protected List<Integer> getSlots(String parameter) {
-            return super.getSlots(parameter.substring(0, parameter.indexOf('|')));
+            return super.getSlots(HerbParameter.getSlots(parameter));
         }
 
         /**
@@ -297,37 +435,7 @@ public class SeedingHerbRecipe implements CraftInHandRecipe {
             String herbIconUri = (genomeManager.getGenomeProperty(item, Herbalism.ICON_PROPERTY, TextureRegionAsset.class))
                     .getUrn().toString();
 
-            return super.getParameter(slots, item) + "|" + genome.genes + "|" + herbName + "|" + herbIconUri;
-        }
-
-        /**
-         * Extract the seed genome from the seeding herb recipe parameters.
-         *
-         * @param parameter     The recipe parameters in one String.
-         * @return              A String containing the seed genome.
-         */
-        public String getSeedGenome(String parameter) {
-            return parameter.split("\\|")[1];
-        }
-
-        /**
-         * Extract the herb name from the seeding herb recipe parameters.
-         *
-         * @param parameter     The recipe parameters in one String.
-         * @return              A String containing the herb name.
-         */
-        public String getHerbName(String parameter) {
-            return parameter.split("\\|")[2];
-        }
-
-        /**
-         * Extract the herb icon URI from the seeding herb recipe parameters.
-         *
-         * @param parameter     The recipe parameters in one String.
-         * @return              A String containing the herb icon URI.
-         */
-        public String getHerbIconUri(String parameter) {
-            return parameter.split("\\|")[3];
+            return new HerbParameter(super.getParameter(slots, item), genome.genomeId, genome.genes, herbName, herbIconUri).toString();
         }
     }
 }
@@ -0,0 +1,86 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.herbalism;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import org.terasology.genome.component.GenomeComponent;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A shared, weakly referenced table of herb genome IDs and gene Strings. Large farms and stockpiles hold many herbs
+ * with identical genomes, so all of them share a single instance of each String instead of keeping their own copy.
+ * Strings that are no longer referenced by any genome are dropped from the table by the garbage collector.
+ */
+public final class HerbGenomeInterner {
+    /** Rough heap size of a String object and its backing array, excluding the characters themselves. */
+    private static final int STRING_OVERHEAD = 40;
+
+    private static final Interner<String> STRINGS = Interners.newWeakInterner();
+
+    private static final AtomicLong LOOKUPS = new AtomicLong();
+
+    /** Number of lookups that returned an already shared instance instead of the given String. */
+    private static final AtomicLong REPLACED = new AtomicLong();
+
+    /** Estimated heap size of the replaced Strings. */
+    private static final AtomicLong REPLACED_BYTES = new AtomicLong();
+
+    private HerbGenomeInterner() {
+    }
+
+    /**
+     * Get the shared instance of a genome ID or gene String.
+     *
+     * @param value     The String to intern. This may be null.
+     * @return          The shared instance equal to the given String, or null if it was null.
+     */
+    public static String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        LOOKUPS.incrementAndGet();
+        String interned = STRINGS.intern(value);
+        if (interned != value) {
+            REPLACED.incrementAndGet();
+            REPLACED_BYTES.addAndGet(STRING_OVERHEAD + value.length());
+        }
+        return interned;
+    }
+
+    /**
+     * Create a new genome component holding the shared instances of the given genome ID and genes.
+     *
+     * @param genomeId  ID of the genome type.
+     * @param genes     Genes of the genome.
+     * @return          The new genome component.
+     */
+    public static GenomeComponent createGenome(String genomeId, String genes) {
+        GenomeComponent genome = new GenomeComponent();
+        genome.genomeId = intern(genomeId);
+        genome.genes = intern(genes);
+        return genome;
+    }
+
+    /**
+     * Create a copy of a genome component, holding the shared instances of its genome ID and genes.
+     *
+     * @param genome    The genome component to copy.
+     * @return          The new genome component.
+     */
+    public static GenomeComponent copyGenome(GenomeComponent genome) {
+        return createGenome(genome.genomeId, genome.genes);
+    }
+
+    /**
+     * Describe how many duplicate String instances the table has replaced so far. A replaced String is only freed once
+     * nothing else refers to it, so the heap figure is an estimated upper bound rather than a measurement.
+     *
+     * @return  The number of lookups and replaced duplicates, along with an upper bound of the heap freed.
+     */
+    public static String getReport() {
+        return String.format("Herb genome interning: %d lookups, %d duplicate instances replaced, "
+                + "at most ~%d KiB of heap freed (estimate)", LOOKUPS.get(), REPLACED.get(), REPLACED_BYTES.get() / 1024);
+    }
+}
@@ -12,11 +12,14 @@ import java.util.List;
  * Randomly provides names for herbs from a predetermined list.
  */
 public class HerbNameProvider {
-    /** Markov name generator for a generation of herbs. */
-    private final MarkovNameGenerator generaGen;
+    /** The seed used for randomizing the output names. */
+    private final int seed;
 
-    /** Markov name generator for a family of herbs. */
-    private final MarkovNameGenerator familyGen;
+    /**
+     * The trained name generators. These are only built when the first name is requested, as loading the name lists and
+     * training the generators is expensive and not needed to start the world.
+     */
+    private volatile Generators generators;
 
     /**
      * Create an instance of this class using an input seed for the randomization.
@@ -24,13 +27,7 @@ public class HerbNameProvider {
      * @param seed  An integer value used for randomizing the output names.
      */
     public HerbNameProvider(int seed) {
-        final List<String> families = Assets.getPrefab("NameGenerator:floweringPlantsFamilies").get()
-                .getComponent(NameGeneratorComponent.class).nameList;
-        final List<String> generas = Assets.getPrefab("NameGenerator:floweringPlantsGenera").get()
-                .getComponent(NameGeneratorComponent.class).nameList;
-
-        generaGen = new MarkovNameGenerator(seed, generas);
-        familyGen = new MarkovNameGenerator(seed + 937623, families);
+        this.seed = seed;
     }
 
     /**
@@ -40,8 +37,50 @@ public class HerbNameProvider {
      * @return      A randomized name for an herb.
      */
     public String getName(String seed) {
+        final Generators gens = getGenerators();
         int length = seed.length();
-        return generaGen.getName(4, 8, seed.substring(0, length / 2).hashCode()) + " " + familyGen
+        return gens.generaGen.getName(4, 8, seed.substring(0, length / 2).hashCode()) + " " + gens.familyGen
                 .getName(4, 8, seed.substring(0, length).hashCode());
     }
+
+    /**
+     * Get the name generators, training them first if this is the first name requested. The generators are only
+     * published once both of them are fully trained.
+     *
+     * @return  The trained name generators.
+     */
+    private Generators getGenerators() {
+        Generators result = generators;
+        if (result == null) {
+            synchronized (this) {
+                result = generators;
+                if (result == null) {
+                    result = new Generators(seed);
+                    generators = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The Markov name generators used for the two parts of a herb name.
+     */
+    private static final class Generators {
+        /** Markov name generator for a generation of herbs. */
+        private final MarkovNameGenerator generaGen;
+
+        /** Markov name generator for a family of herbs. */
+        private final MarkovNameGenerator familyGen;
+
+        private Generators(int seed) {
+            final List<String> families = Assets.getPrefab("NameGenerator:floweringPlantsFamilies").get()
+                    .getComponent(NameGeneratorComponent.class).nameList;
+            final List<String> generas = Assets.getPrefab("NameGenerator:floweringPlantsGenera").get()
+                    .getComponent(NameGeneratorComponent.class).nameList;
+
+            generaGen = new MarkovNameGenerator(seed, generas);
+            familyGen = new MarkovNameGenerator(seed + 937623, families);
+        }
+    }
 }
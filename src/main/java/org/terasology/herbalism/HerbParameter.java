@@ -0,0 +1,112 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.herbalism;
+
+/**
+ * A pre-parsed recipe parameter for a herb ingredient. The WorkstationCrafting API passes recipe parameters around as
+ * Strings, so this is serialized in a "slots|genomeId|genes|herbName|iconUri" format, where the icon URI is optional.
+ */
+public final class HerbParameter {
+    /** Separator between the individual values in the String form. */
+    private static final char SEPARATOR = '|';
+
+    /** The item slots parameter, as produced by the ingredient's consumption behaviour. */
+    private final String slots;
+
+    private final String genomeId;
+    private final String genes;
+    private final String herbName;
+
+    /** URI of the herb's icon. This may be null if the recipe doesn't need it. */
+    private final String iconUri;
+
+    /** The String form of this parameter. */
+    private final String serialized;
+
+    /**
+     * Create a herb parameter from its individual values.
+     *
+     * @param slots     The item slots parameter of the herb ingredient.
+     * @param genomeId  ID of the herb's genome type.
+     * @param genes     Genes of the herb.
+     * @param herbName  Name of the herb.
+     * @param iconUri   URI of the herb's icon, or null if not needed.
+     */
+    public HerbParameter(String slots, String genomeId, String genes, String herbName, String iconUri) {
+        this.slots = slots;
+        this.genomeId = genomeId;
+        this.genes = genes;
+        this.herbName = herbName;
+        this.iconUri = iconUri;
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(slots).append(SEPARATOR).append(genomeId).append(SEPARATOR).append(genes).append(SEPARATOR).append(herbName);
+        if (iconUri != null) {
+            sb.append(SEPARATOR).append(iconUri);
+        }
+        serialized = sb.toString();
+    }
+
+    private HerbParameter(String serialized, String[] split) {
+        this.serialized = serialized;
+        this.slots = split[0];
+        this.genomeId = split[1];
+        this.genes = split[2];
+        this.herbName = split[3];
+        this.iconUri = split.length > 4 ? split[4] : null;
+    }
+
+    /**
+     * Parse a herb parameter from its String form.
+     *
+     * @param parameter     The recipe parameter String.
+     * @return              The parsed herb parameter, or null if the given parameter doesn't describe a herb.
+     */
+    public static HerbParameter parse(String parameter) {
+        String[] split = parameter.split("\\|");
+        if (split.length < 4) {
+            return null;
+        }
+        return new HerbParameter(parameter, split);
+    }
+
+    /**
+     * Extract only the item slots part of a herb parameter String, without parsing the rest of it.
+     *
+     * @param parameter     The recipe parameter String.
+     * @return              The item slots parameter of the herb ingredient.
+     */
+    public static String getSlots(String parameter) {
+        return parameter.substring(0, parameter.indexOf(SEPARATOR));
+    }
+
+    public String getSlots() {
+        return slots;
+    }
+
+    public String getGenomeId() {
+        return genomeId;
+    }
+
+    public String getGenes() {
+        return genes;
+    }
+
+    public String getHerbName() {
+        return herbName;
+    }
+
+    public String getIconUri() {
+        return iconUri;
+    }
+
+    /**
+     * Get the String form of this parameter, as used by the WorkstationCrafting API.
+     *
+     * @return  The serialized parameter.
+     */
+    @Override
+    public String toString() {
+        return serialized;
+    }
+}
@@ -0,0 +1,107 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.herbalism;
+
+import org.terasology.durability.components.DurabilityComponent;
+
+/**
+ * A pre-parsed recipe parameter for a potion bottle ingredient. This carries the details of the consumed bottle along
+ * with the workstation process, instead of keeping them in the recipe which is shared by all stations. It's serialized
+ * in a "slots#bottlePrefab#durability#maxDurability" format, where the durability values are optional.
+ */
+public final class PotionBottleParameter {
+    /** Separator between the individual values in the String form. */
+    private static final char SEPARATOR = '#';
+
+    /** The item slots parameter, as produced by the ingredient's consumption behaviour. */
+    private final String slots;
+
+    /** URI of the bottle's prefab. */
+    private final String bottlePrefab;
+
+    /** Durability of the bottle. This is null if the bottle has none. */
+    private final DurabilityComponent durability;
+
+    /**
+     * Create a potion bottle parameter from its individual values.
+     *
+     * @param slots         The item slots parameter of the bottle ingredient.
+     * @param bottlePrefab  URI of the bottle's prefab.
+     * @param durability    Durability of the bottle, or null if it has none.
+     */
+    public PotionBottleParameter(String slots, String bottlePrefab, DurabilityComponent durability) {
+        this.slots = slots;
+        this.bottlePrefab = bottlePrefab;
+        this.durability = durability;
+    }
+
+    /**
+     * Parse a potion bottle parameter from its String form.
+     *
+     * @param parameter     The recipe parameter String.
+     * @return              The parsed bottle parameter, or null if the given parameter doesn't describe a bottle.
+     */
+    public static PotionBottleParameter parse(String parameter) {
+        String[] split = parameter.split(String.valueOf(SEPARATOR));
+        if (split.length < 2) {
+            return null;
+        }
+
+        DurabilityComponent durability = null;
+        if (split.length >= 4) {
+            durability = new DurabilityComponent();
+            durability.durability = Integer.parseInt(split[2]);
+            durability.maxDurability = Integer.parseInt(split[3]);
+        }
+        return new PotionBottleParameter(split[0], split[1], durability);
+    }
+
+    /**
+     * Extract only the item slots part of a potion bottle parameter String, without parsing the rest of it.
+     *
+     * @param parameter     The recipe parameter String.
+     * @return              The item slots parameter of the bottle ingredient.
+     */
+    public static String getSlots(String parameter) {
+        final int end = parameter.indexOf(SEPARATOR);
+        return end >= 0 ? parameter.substring(0, end) : parameter;
+    }
+
+    public String getSlots() {
+        return slots;
+    }
+
+    public String getBottlePrefab() {
+        return bottlePrefab;
+    }
+
+    /**
+     * Get a copy of the bottle's durability, so that it can be added to the brewed potion.
+     *
+     * @return  A new durability component, or null if the bottle had no durability.
+     */
+    public DurabilityComponent copyDurability() {
+        if (durability == null) {
+            return null;
+        }
+        DurabilityComponent copy = new DurabilityComponent();
+        copy.durability = durability.durability;
+        copy.maxDurability = durability.maxDurability;
+        return copy;
+    }
+
+    /**
+     * Get the String form of this parameter, as used by the WorkstationCrafting API.
+     *
+     * @return  The serialized parameter.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(slots).append(SEPARATOR).append(bottlePrefab);
+        if (durability != null) {
+            sb.append(SEPARATOR).append(durability.durability).append(SEPARATOR).append(durability.maxDurability);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,77 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.herbalism;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.terasology.engine.entitySystem.prefab.Prefab;
+import org.terasology.engine.utilities.Assets;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A cache of resolved prefabs, shared by the herbalism recipes built by one system. Many recipes refer to the same
+ * prefabs (like glass bottles or common herbs), so each of them is only looked up through the asset system once.
+ * Prefabs that couldn't be found aren't remembered, so they're looked up again in case they become available later.
+ */
+public class ResolvedPrefabCache {
+    /** Resolved prefabs, mapped by their lower case URI. */
+    private final Map<String, Prefab> prefabs = Maps.newHashMap();
+
+    /**
+     * Get a prefab, resolving it through the asset system if it hasn't been already.
+     *
+     * @param prefabUri     URI of the prefab.
+     * @return              The prefab, or null if it doesn't exist.
+     */
+    public Prefab get(String prefabUri) {
+        final String key = prefabUri.toLowerCase(Locale.ROOT);
+        Prefab prefab = prefabs.get(key);
+        if (prefab == null) {
+            prefab = Assets.getPrefab(prefabUri).orElse(null);
+            if (prefab != null) {
+                prefabs.put(key, prefab);
+            }
+        }
+        return prefab;
+    }
+
+    /**
+     * Forget a previously resolved prefab, so it's looked up again on next use.
+     *
+     * @param prefabUri     URI of the prefab.
+     */
+    public void invalidate(String prefabUri) {
+        prefabs.remove(prefabUri.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Forget the resolved prefabs that are no longer current, either because they were disposed or because their URI
+     * now resolves to a different prefab, as happens when prefabs are reloaded.
+     *
+     * @return  The lower case URIs of the forgotten prefabs.
+     */
+    public Set<String> invalidateChanged() {
+        Set<String> changed = Sets.newHashSet();
+        Iterator<Map.Entry<String, Prefab>> iterator = prefabs.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Prefab> entry = iterator.next();
+            Prefab prefab = entry.getValue();
+            if (prefab.isDisposed() || Assets.getPrefab(entry.getKey()).orElse(null) != prefab) {
+                changed.add(entry.getKey());
+                iterator.remove();
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Forget all previously resolved prefabs.
+     */
+    public void clear() {
+        prefabs.clear();
+    }
+}
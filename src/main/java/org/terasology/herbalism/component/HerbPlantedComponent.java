@@ -0,0 +1,19 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.herbalism.component;
+
+import org.terasology.gestalt.entitysystem.component.Component;
+
+/**
+ * Add this component to a growing herb plant to record when it was planted. This is carried over between growth stages
+ * so that the current stage can be recomputed when the herb's chunk is loaded again.
+ */
+public final class HerbPlantedComponent implements Component<HerbPlantedComponent> {
+    /** Game time (in milliseconds) at which this herb was planted. */
+    public long plantedTime;
+
+    @Override
+    public void copyFrom(HerbPlantedComponent other) {
+        this.plantedTime = other.plantedTime;
+    }
+}
@@ -0,0 +1,38 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.herbalism.component;
+
+import com.google.common.collect.Lists;
+import org.terasology.gestalt.entitysystem.component.Component;
+
+import java.util.List;
+
+/**
+ * Add this component to a prefab to define which herbs spawn in a biome during world generation.
+ */
+public class HerbSpawnTableComponent implements Component<HerbSpawnTableComponent> {
+    /** Name of the AnotherWorld biome these herbs spawn in. */
+    public String biome;
+
+    /** ID of the plant type the spawned herbs belong to. */
+    public String plantId;
+
+    public float rarity;
+    public float probability;
+
+    /** URIs of the blocks the herbs can be placed on. */
+    public List<String> groundBlocks = Lists.newArrayList();
+
+    /** The herb blocks that can spawn, in a "weight*blockUri" format. */
+    public List<String> herbs = Lists.newArrayList();
+
+    @Override
+    public void copyFrom(HerbSpawnTableComponent other) {
+        this.biome = other.biome;
+        this.plantId = other.plantId;
+        this.rarity = other.rarity;
+        this.probability = other.probability;
+        this.groundBlocks = Lists.newArrayList(other.groundBlocks);
+        this.herbs = Lists.newArrayList(other.herbs);
+    }
+}
@@ -0,0 +1,57 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.herbalism.component;
+
+import com.google.common.collect.Lists;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.network.Replicate;
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.reflection.MappedContainer;
+
+import java.util.List;
+
+/**
+ * Add this component to a HerbalismStation to let it queue up brews. Brews requested while the station is busy are
+ * added to the queue, and started one after another as the previous brew finishes.
+ */
+public class HerbalismBrewQueueComponent implements Component<HerbalismBrewQueueComponent> {
+    /** Maximum number of brews that can wait in the queue. */
+    public int maxQueueSize = 8;
+
+    /** The brews waiting to be started, in order. */
+    @Replicate
+    public List<QueuedBrew> queuedBrews = Lists.newArrayList();
+
+    @Override
+    public void copyFrom(HerbalismBrewQueueComponent other) {
+        this.maxQueueSize = other.maxQueueSize;
+        this.queuedBrews = Lists.newArrayList();
+        for (QueuedBrew brew : other.queuedBrews) {
+            this.queuedBrews.add(new QueuedBrew(brew.instigator, brew.processId, brew.resultId));
+        }
+    }
+
+    /**
+     * A single brew waiting in the queue.
+     */
+    @MappedContainer
+    public static class QueuedBrew {
+        /** The character who requested this brew. */
+        public EntityRef instigator = EntityRef.NULL;
+
+        /** ID of the workstation process to run. */
+        public String processId;
+
+        /** ID of the recipe result to brew, including the ingredients to use. */
+        public String resultId;
+
+        public QueuedBrew() {
+        }
+
+        public QueuedBrew(EntityRef instigator, String processId, String resultId) {
+            this.instigator = instigator;
+            this.processId = processId;
+            this.resultId = resultId;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.herbalism.component;
+
+import org.terasology.gestalt.entitysystem.component.EmptyComponent;
+
+/**
+ * Add this component to a workstation to indicate that it is a HerbalismStation, and uses the HerbalismStation window.
+ */
+public class HerbalismStationComponent extends EmptyComponent<HerbalismStationComponent> {
+}
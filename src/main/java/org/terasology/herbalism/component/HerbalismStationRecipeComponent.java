@@ -24,6 +24,17 @@ public class HerbalismStationRecipeComponent implements Component<HerbalismStati
     public String itemResult;
     public String blockResult;
 
+    /**
+     * Sizes of the batches this recipe can also be brewed in, besides brewing a single potion. Each batch is brewed by
+     * a single station process, consuming the ingredients and water of all of its potions at once. This is empty by
+     * default, so batches have to be enabled in each recipe prefab that should offer them.
+     *
+     * All the empty bottles of a batch have to come from a single stack in the station, so that every potion of the
+     * batch can carry the durability of the bottles it was brewed in. Batches larger than the bottle's stack size can
+     * never be brewed. The other ingredients may be spread over several stacks.
+     */
+    public List<Integer> batchSizes = Lists.newArrayList();
+
     @Override
     public void copyFrom(HerbalismStationRecipeComponent other) {
         this.recipeId = other.recipeId;
@@ -34,5 +45,6 @@ public class HerbalismStationRecipeComponent implements Component<HerbalismStati
         this.processingDuration = other.processingDuration;
         this.itemResult = other.itemResult;
         this.blockResult = other.blockResult;
+        this.batchSizes = Lists.newArrayList(other.batchSizes);
     }
 }
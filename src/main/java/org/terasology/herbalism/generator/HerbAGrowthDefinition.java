@@ -5,6 +5,7 @@ package org.terasology.herbalism.generator;
 import org.joml.Vector3ic;
 import org.terasology.engine.entitySystem.entity.EntityRef;
 import org.terasology.engine.registry.CoreRegistry;
+import org.terasology.engine.utilities.random.FastRandom;
 import org.terasology.engine.world.BlockEntityRegistry;
 import org.terasology.engine.world.WorldProvider;
 import org.terasology.engine.world.block.BlockManager;
@@ -12,8 +13,13 @@ import org.terasology.engine.world.block.BlockUri;
 import org.terasology.engine.world.generator.plugin.RegisterPlugin;
 import org.terasology.genome.component.GenomeComponent;
 import org.terasology.gf.grass.ReplaceBlockGrowthDefinition;
+import org.terasology.herbalism.HerbGenomeInterner;
+import org.terasology.herbalism.component.HerbPlantedComponent;
+import org.terasology.herbalism.system.HerbGrowthAuthoritySystem;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * This plugin defines the growth of herbs and how they may replace certain blocks.
@@ -22,20 +28,102 @@ import java.util.Arrays;
 public class HerbAGrowthDefinition extends ReplaceBlockGrowthDefinition {
     public static final String ID = "Herbalism:Herb";
 
+    /** The blocks a herb goes through while growing, in order. The last one is the withered plant. */
+    public static final List<BlockUri> PLANT_STAGES = Collections.unmodifiableList(Arrays.asList(
+            new BlockUri("Alchemy:HerbGrowA"), new BlockUri("Alchemy:HerbGrownA"), new BlockUri("CoreAssets:DeadBush")));
+
+    /** Minimum time (in milliseconds) a herb spends in a single growth stage. */
+    public static final long MIN_GROWTH_TIME = 50 * 1000;
+
+    /** Maximum time (in milliseconds) a herb spends in a single growth stage. */
+    public static final long MAX_GROWTH_TIME = 200 * 1000;
+
     /**
      * Define the growth definition for the base (generated) herbs.
      */
     public HerbAGrowthDefinition() {
-        super(ID, Arrays.asList(
-                        new BlockUri("Alchemy:HerbGrowA"), new BlockUri("Alchemy:HerbGrownA"), new BlockUri("CoreAssets:DeadBush")),
-                50 * 1000, 200 * 1000,
-                input -> input.getHumidity() > 0.2f && input.getTemperature() > 15f,
+        super(ID, PLANT_STAGES, MIN_GROWTH_TIME, MAX_GROWTH_TIME,
+                input -> canGrow(input.getHumidity(), input.getTemperature()),
                 input -> 0.2f * input.getHumidity()
         );
     }
 
     /**
-     * Replace this particular herb plant block with the next stage of the herb plant block.
+     * Check whether a herb is able to grow under the given climate conditions.
+     *
+     * @param humidity      Humidity at the herb's location.
+     * @param temperature   Temperature at the herb's location.
+     * @return              True if the herb can grow there. False otherwise.
+     */
+    public static boolean canGrow(float humidity, float temperature) {
+        return humidity > 0.2f && temperature > 15f;
+    }
+
+    /**
+     * Get the seed used for picking the growth stage durations of a herb. This stays the same across chunk loads.
+     *
+     * @param position      World position of the herb.
+     * @param plantedTime   Game time (in milliseconds) at which the herb was planted.
+     * @return              The growth seed.
+     */
+    public static int getGrowthSeed(Vector3ic position, long plantedTime) {
+        return 31 * position.hashCode() + Long.hashCode(plantedTime);
+    }
+
+    /**
+     * Compute which growth stage a herb should be in after the given amount of time has passed since planting. This is
+     * a closed form of the stage-by-stage growth, so no intermediate stages have to be replayed.
+     *
+     * @param seed          Seed used for picking the per-stage growth durations. Stable for a given plant.
+     * @param elapsedTime   Time (in milliseconds) that has passed since the herb was planted.
+     * @return              Index into {@link #PLANT_STAGES} of the stage the herb should be in.
+     */
+    public static int getStageAt(int seed, long elapsedTime) {
+        long stageEnd = 0;
+        for (int stage = 0; stage < PLANT_STAGES.size() - 1; stage++) {
+            stageEnd += getStageDuration(seed, stage);
+            if (elapsedTime < stageEnd) {
+                return stage;
+            }
+        }
+        return PLANT_STAGES.size() - 1;
+    }
+
+    /**
+     * Compute how long it is until a herb should move on to its next growth stage.
+     *
+     * @param seed          Seed used for picking the per-stage growth durations. Stable for a given plant.
+     * @param elapsedTime   Time (in milliseconds) that has passed since the herb was planted.
+     * @return              Time (in milliseconds) until the next stage, or -1 if the herb is in its last stage.
+     */
+    public static long getTimeUntilNextStage(int seed, long elapsedTime) {
+        long stageEnd = 0;
+        for (int stage = 0; stage < PLANT_STAGES.size() - 1; stage++) {
+            stageEnd += getStageDuration(seed, stage);
+            if (elapsedTime < stageEnd) {
+                return stageEnd - elapsedTime;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get how long a plant stays in the given growth stage.
+     *
+     * @param seed      Seed used for picking the growth duration. Stable for a given plant.
+     * @param stage     Index of the growth stage.
+     * @return          Duration of the stage in milliseconds, between the minimum and maximum growth times.
+     */
+    private static long getStageDuration(int seed, int stage) {
+        FastRandom random = new FastRandom(seed * 31L + stage);
+        return MIN_GROWTH_TIME + (long) (random.nextFloat() * (MAX_GROWTH_TIME - MIN_GROWTH_TIME));
+    }
+
+    /**
+     * Replace this particular herb plant block with the next stage of the herb plant block. GrowingFlora picks its own
+     * random growth intervals, so planted herbs only move on once their planting time says they're due. This keeps
+     * regular growth in step with the growth that is caught up when a chunk loads, and stops a herb that was already
+     * caught up from being advanced a second time by a timer that was persisted with its chunk.
      *
      * @param worldProvider     WorldProvider instance to interface with the game world blocks.
      * @param blockManager      BlockManager instance to get the specific block type.
@@ -47,14 +135,23 @@ public class HerbAGrowthDefinition extends ReplaceBlockGrowthDefinition {
     @Override
     protected void replaceBlock(WorldProvider worldProvider, BlockManager blockManager, EntityRef plant,
                                 Vector3ic position, BlockUri nextStage, boolean isLast) {
+        // The planting time is carried over as well, so the growth stage can be recomputed on a later chunk load.
+        final HerbPlantedComponent planted = plant.getComponent(HerbPlantedComponent.class);
+        if (planted != null) {
+            HerbGrowthAuthoritySystem growthSystem = CoreRegistry.get(HerbGrowthAuthoritySystem.class);
+            if (growthSystem != null && !growthSystem.isStageDue(position, planted, PLANT_STAGES.indexOf(nextStage))) {
+                // Re-check the herb once its next stage is actually due.
+                growthSystem.scheduleGrowth(plant, position, planted);
+                return;
+            }
+        }
+
         // If this is not the last stage of herb plant growth, continue as normal. Otherwise, just call the parent method.
         if (!isLast) {
             // We need to copy the genome between growth stages. Otherwise it will be lost upon replacing this block.
             final GenomeComponent genome = plant.getComponent(GenomeComponent.class);
 
-            GenomeComponent genomeCopy = new GenomeComponent();
-            genomeCopy.genomeId = genome.genomeId;
-            genomeCopy.genes = genome.genes;
+            GenomeComponent genomeCopy = HerbGenomeInterner.copyGenome(genome);
 
             // After copying, call the parent replace block as normal.
             super.replaceBlock(worldProvider, blockManager, plant, position, nextStage, isLast);
@@ -62,6 +159,11 @@ public class HerbAGrowthDefinition extends ReplaceBlockGrowthDefinition {
             // Get the herb plant block at this location, and add the copied genome onto it.
             final EntityRef blockEntity = CoreRegistry.get(BlockEntityRegistry.class).getEntityAt(position);
             blockEntity.addComponent(genomeCopy);
+            if (planted != null) {
+                HerbPlantedComponent plantedCopy = new HerbPlantedComponent();
+                plantedCopy.copyFrom(planted);
+                blockEntity.addComponent(plantedCopy);
+            }
         } else {
             super.replaceBlock(worldProvider, blockManager, plant, position, nextStage, isLast);
         }
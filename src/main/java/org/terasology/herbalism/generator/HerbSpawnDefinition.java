@@ -0,0 +1,48 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.herbalism.generator;
+
+import org.terasology.anotherWorld.AnotherWorldBiomes;
+import org.terasology.gf.PlantType;
+import org.terasology.gf.generator.StaticBlockFloraSpawnDefinition;
+
+/**
+ * Base spawn definition for herbs. Which herbs spawn, how often, and on what ground is defined by the spawn table
+ * prefabs of the biome, so herbs can be added to a biome without any code changes. The prefabs are only read once world
+ * generation first needs them.
+ *
+ * World generator plugins are discovered by class and each spawn definition belongs to a single biome, so a biome
+ * still needs one of these registered for it before its spawn tables are used.
+ */
+public abstract class HerbSpawnDefinition extends StaticBlockFloraSpawnDefinition {
+    private final HerbSpawnTable table;
+
+    /**
+     * Define the herb spawn details of the given biome.
+     *
+     * @param biome     The AnotherWorld biome whose spawn tables should be used.
+     */
+    protected HerbSpawnDefinition(AnotherWorldBiomes biome) {
+        this(new HerbSpawnTable(biome));
+    }
+
+    private HerbSpawnDefinition(HerbSpawnTable table) {
+        super(PlantType.GRASS, table.getBiomeId(), 0f, 0f, HerbAGrowthDefinition.ID, table.getHerbBlocks(), table, null);
+        this.table = table;
+    }
+
+    @Override
+    public float getRarity() {
+        return table.getRarity();
+    }
+
+    @Override
+    public float getProbability() {
+        return table.getProbability();
+    }
+
+    @Override
+    public String getPlantId() {
+        return table.getPlantId();
+    }
+}
@@ -0,0 +1,186 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.herbalism.generator;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.Lists;
+import org.terasology.anotherWorld.AnotherWorldBiomes;
+import org.terasology.engine.entitySystem.prefab.Prefab;
+import org.terasology.engine.entitySystem.prefab.PrefabManager;
+import org.terasology.engine.registry.CoreRegistry;
+import org.terasology.engine.world.block.Block;
+import org.terasology.engine.world.block.BlockManager;
+import org.terasology.engine.world.block.BlockUri;
+import org.terasology.herbalism.component.HerbSpawnTableComponent;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The herb spawn details of a single biome. These are gathered from every prefab with a HerbSpawnTableComponent for the
+ * biome, so modules can add herbs to a biome from data alone. Nothing is looked up until world generation first needs
+ * it. This also acts as the ground filter of the spawn definition, checking blocks against a primitive array of ground
+ * block IDs.
+ */
+public final class HerbSpawnTable implements Predicate<Block> {
+    private final AnotherWorldBiomes biome;
+
+    /** The spawn details gathered from the spawn table prefabs. These are only resolved on first use. */
+    private volatile Contents contents;
+
+    /** A view of the herb blocks that can spawn, which only resolves the spawn tables once it is read. */
+    private final List<BlockUri> herbBlocks = new AbstractList<BlockUri>() {
+        @Override
+        public BlockUri get(int index) {
+            return getContents().herbBlocks.get(index);
+        }
+
+        @Override
+        public int size() {
+            return getContents().herbBlocks.size();
+        }
+    };
+
+    /**
+     * Create the spawn table of a biome. The spawn table prefabs aren't read until the table is first used.
+     *
+     * @param biome     The AnotherWorld biome the herbs spawn in.
+     */
+    public HerbSpawnTable(AnotherWorldBiomes biome) {
+        this.biome = biome;
+    }
+
+    public String getBiomeId() {
+        return biome.getId().toLowerCase();
+    }
+
+    public String getPlantId() {
+        return getContents().plantId;
+    }
+
+    public float getRarity() {
+        return getContents().rarity;
+    }
+
+    public float getProbability() {
+        return getContents().probability;
+    }
+
+    /**
+     * Get the herb blocks that can spawn. Each one is repeated as many times as its weight.
+     *
+     * @return  A view of the herb blocks, which reads the spawn table prefabs on first access.
+     */
+    public List<BlockUri> getHerbBlocks() {
+        return herbBlocks;
+    }
+
+    /**
+     * Check whether a herb from this table can be placed on top of the given block.
+     *
+     * @param block     The block below the herb.
+     * @return          True if the block is one of this table's ground blocks. False otherwise.
+     */
+    @Override
+    public boolean apply(Block block) {
+        final short blockId = block.getId();
+        for (short id : getContents().getGroundBlockIds()) {
+            if (id == blockId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the spawn details of this biome, gathering them from the spawn table prefabs if that hasn't happened yet.
+     *
+     * @return  The spawn details.
+     */
+    private Contents getContents() {
+        Contents result = contents;
+        if (result == null) {
+            synchronized (this) {
+                result = contents;
+                if (result == null) {
+                    result = new Contents(biome);
+                    contents = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The spawn details of a biome, merged from all of its spawn table prefabs. The plant ID, rarity and probability
+     * are taken from the first of these prefabs (by URN), while their herbs and ground blocks are combined. A biome
+     * without any spawn table has a rarity of 0, so no herbs spawn in it.
+     */
+    private static final class Contents {
+        private String plantId = HerbAGrowthDefinition.ID;
+        private float rarity;
+        private float probability;
+
+        private final List<BlockUri> herbBlocks = Lists.newArrayList();
+        private final List<BlockUri> groundBlocks = Lists.newArrayList();
+
+        /** IDs of the ground blocks. These are resolved once, when the world generator first needs them. */
+        private volatile short[] groundBlockIds;
+
+        private Contents(AnotherWorldBiomes biome) {
+            List<Prefab> prefabs = Lists.newArrayList(
+                    CoreRegistry.get(PrefabManager.class).listPrefabs(HerbSpawnTableComponent.class));
+            prefabs.sort(Comparator.comparing(prefab -> prefab.getUrn().toString()));
+
+            boolean first = true;
+            for (Prefab prefab : prefabs) {
+                HerbSpawnTableComponent table = prefab.getComponent(HerbSpawnTableComponent.class);
+                if (!biome.name().equalsIgnoreCase(table.biome)) {
+                    continue;
+                }
+                if (first) {
+                    if (table.plantId != null) {
+                        plantId = table.plantId;
+                    }
+                    rarity = table.rarity;
+                    probability = table.probability;
+                    first = false;
+                }
+
+                for (String herb : table.herbs) {
+                    String[] split = herb.split("\\*");
+                    BlockUri herbUri = new BlockUri(split[1]);
+                    herbBlocks.addAll(Collections.nCopies(Integer.parseInt(split[0]), herbUri));
+                }
+                for (String groundBlock : table.groundBlocks) {
+                    groundBlocks.add(new BlockUri(groundBlock));
+                }
+            }
+
+            // A table without any herbs would have nothing to spawn when picked.
+            if (herbBlocks.isEmpty()) {
+                rarity = 0;
+            }
+        }
+
+        /**
+         * Get the IDs of the ground blocks, resolving the ground block URIs if that hasn't happened yet.
+         *
+         * @return  The IDs of the ground blocks.
+         */
+        private short[] getGroundBlockIds() {
+            short[] ids = groundBlockIds;
+            if (ids == null) {
+                BlockManager blockManager = CoreRegistry.get(BlockManager.class);
+                ids = new short[groundBlocks.size()];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = blockManager.getBlock(groundBlocks.get(i)).getId();
+                }
+                groundBlockIds = ids;
+            }
+            return ids;
+        }
+    }
+}
@@ -27,6 +27,7 @@ import org.terasology.genome.breed.BiodiversityGenerator;
 import org.terasology.genome.component.GenomeComponent;
 import org.terasology.genome.system.GenomeManager;
 import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
+import org.terasology.herbalism.HerbGenomeInterner;
 import org.terasology.herbalism.HerbGeneMutator;
 import org.terasology.herbalism.Herbalism;
 import org.terasology.herbalism.component.GeneratedHerbComponent;
@@ -111,9 +112,7 @@ public class HerbDropAuthoritySystem extends BaseComponentSystem {
             EntityRef herb = entityManager.create("Alchemy:HerbBase");
 
             // Copy over the old genome from the block into the item.
-            GenomeComponent genome = new GenomeComponent();
-            genome.genomeId = genomeComponent.genomeId;
-            genome.genes = genomeComponent.genes;
+            GenomeComponent genome = HerbGenomeInterner.copyGenome(genomeComponent);
             herb.addComponent(genome);
 
             // Set the icon of the herb.
@@ -166,9 +165,7 @@ public class HerbDropAuthoritySystem extends BaseComponentSystem {
             EntityRef herb = entityManager.create("Alchemy:HerbBase");
 
             // Add a new set of genes to this herb based on the previously generated genes.
-            GenomeComponent genomeComponent = new GenomeComponent();
-            genomeComponent.genomeId = "Alchemy:Herb";
-            genomeComponent.genes = generatedGenes;
+            GenomeComponent genomeComponent = HerbGenomeInterner.createGenome("Alchemy:Herb", generatedGenes);
             herb.addComponent(genomeComponent);
 
             // Set the icon of the herb. Due to a glitch with PredefinedHerbs, the icon setting has been temporarily disabled.
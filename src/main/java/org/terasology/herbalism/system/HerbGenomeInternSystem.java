@@ -0,0 +1,69 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.herbalism.system;
+
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnActivatedComponent;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnChangedComponent;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.logic.console.commandSystem.annotations.Command;
+import org.terasology.engine.logic.permission.PermissionManager;
+import org.terasology.genome.component.GenomeComponent;
+import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
+import org.terasology.herbalism.HerbGenomeInterner;
+
+/**
+ * Common system that makes every genome share the interned instances of its genome ID and genes. This covers genomes
+ * loaded from chunks and saves, genomes replicated from the server, and genomes changed by breeding, none of which are
+ * created through the HerbGenomeInterner.
+ */
+@RegisterSystem
+public class HerbGenomeInternSystem extends BaseComponentSystem {
+    /**
+     * When a genome becomes active, replace its Strings with their shared instances.
+     *
+     * @param event     The activation event.
+     * @param entity    The entity holding the genome.
+     * @param genome    The genome component.
+     */
+    @ReceiveEvent
+    public void onGenomeActivated(OnActivatedComponent event, EntityRef entity, GenomeComponent genome) {
+        internGenome(genome);
+    }
+
+    /**
+     * When a genome is changed, for example by breeding, replace its new Strings with their shared instances.
+     *
+     * @param event     The change event.
+     * @param entity    The entity holding the genome.
+     * @param genome    The genome component.
+     */
+    @ReceiveEvent
+    public void onGenomeChanged(OnChangedComponent event, EntityRef entity, GenomeComponent genome) {
+        internGenome(genome);
+    }
+
+    /**
+     * Show how many duplicate genome String instances this node has replaced, and an upper bound of the heap that
+     * could have freed.
+     *
+     * @return  The interning report.
+     */
+    @Command(shortDescription = "Show how many duplicate herb genome Strings were replaced",
+            requiredPermission = PermissionManager.DEBUG_PERMISSION)
+    public String herbGenomeInternStats() {
+        return HerbGenomeInterner.getReport();
+    }
+
+    /**
+     * Replace the Strings of a genome with their shared instances. The values stay equal, so the component is changed in
+     * place without being saved again.
+     *
+     * @param genome    The genome component.
+     */
+    private void internGenome(GenomeComponent genome) {
+        genome.genomeId = HerbGenomeInterner.intern(genome.genomeId);
+        genome.genes = HerbGenomeInterner.intern(genome.genes);
+    }
+}
@@ -0,0 +1,268 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.herbalism.system;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.joml.Vector3i;
+import org.joml.Vector3ic;
+import org.terasology.climateConditions.ClimateConditionsSystem;
+import org.terasology.engine.core.Time;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.BeforeRemoveComponent;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnActivatedComponent;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnAddedComponent;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.logic.delay.DelayManager;
+import org.terasology.engine.logic.delay.DelayedActionTriggeredEvent;
+import org.terasology.engine.registry.In;
+import org.terasology.engine.registry.Share;
+import org.terasology.engine.world.BlockEntityRegistry;
+import org.terasology.engine.world.WorldComponent;
+import org.terasology.engine.world.WorldProvider;
+import org.terasology.engine.world.block.Block;
+import org.terasology.engine.world.block.BlockComponent;
+import org.terasology.engine.world.block.BlockManager;
+import org.terasology.engine.world.block.BlockUri;
+import org.terasology.engine.world.chunks.Chunks;
+import org.terasology.engine.world.chunks.event.BeforeChunkUnload;
+import org.terasology.engine.world.chunks.event.OnChunkLoaded;
+import org.terasology.genome.component.GenomeComponent;
+import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
+import org.terasology.herbalism.HerbGenomeInterner;
+import org.terasology.herbalism.component.HerbPlantedComponent;
+import org.terasology.herbalism.generator.HerbAGrowthDefinition;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Authority system that catches up the growth of planted herbs whose chunk was unloaded for a while. Instead of replaying
+ * every growth stage that was missed, the current stage is computed directly from the planting time, and all herbs of a
+ * chunk are moved to their stage in a single batch once the chunk has finished loading.
+ *
+ * The planting time is also what decides when a herb grows during regular play, so both kinds of growth agree. Herbs
+ * that have been caught up, or whose GrowingFlora timer fired too early, are re-checked through a delayed action of
+ * their own once their next stage is due.
+ */
+@RegisterSystem(value = RegisterMode.AUTHORITY)
+@Share(HerbGrowthAuthoritySystem.class)
+public class HerbGrowthAuthoritySystem extends BaseComponentSystem {
+    /** ID of the delayed action used to move a herb on to its next growth stage once it is due. */
+    private static final String GROWTH_ACTION = "Alchemy:HerbGrowth";
+
+    @In
+    private WorldProvider worldProvider;
+    @In
+    private BlockManager blockManager;
+    @In
+    private BlockEntityRegistry blockEntityRegistry;
+    @In
+    private ClimateConditionsSystem climateConditionsSystem;
+    @In
+    private Time time;
+    @In
+    private DelayManager delayManager;
+
+    /** Herbs restored from storage that are waiting for their chunk to finish loading, mapped by chunk position. */
+    private Map<Vector3i, List<EntityRef>> pendingHerbs = Maps.newHashMap();
+
+    /** Herbs whose planting component was just added, rather than restored from storage. */
+    private Set<EntityRef> newlyPlantedHerbs = Sets.newHashSet();
+
+    /**
+     * When a planting component is added to a herb, remember that it's a fresh plant that doesn't need any catching up.
+     *
+     * @param event     Details of the component being added.
+     * @param herb      The planted herb block entity.
+     * @param planted   The planting details of the herb.
+     */
+    @ReceiveEvent
+    public void onHerbPlanted(OnAddedComponent event, EntityRef herb, HerbPlantedComponent planted) {
+        newlyPlantedHerbs.add(herb);
+    }
+
+    /**
+     * When a herb stops being planted before it was ever activated, stop remembering it as a fresh plant.
+     *
+     * @param event     Details of the component being removed.
+     * @param herb      The planted herb block entity.
+     * @param planted   The planting details of the herb.
+     */
+    @ReceiveEvent
+    public void onHerbRemoved(BeforeRemoveComponent event, EntityRef herb, HerbPlantedComponent planted) {
+        newlyPlantedHerbs.remove(herb);
+    }
+
+    /**
+     * When a planted herb is restored from storage, queue it up until the rest of its chunk has been loaded.
+     *
+     * @param event     Details of the component activation.
+     * @param herb      The planted herb block entity.
+     * @param planted   The planting details of the herb.
+     * @param block     The herb's block component. This is where the herb is located on the world.
+     */
+    @ReceiveEvent
+    public void onHerbActivated(OnActivatedComponent event, EntityRef herb, HerbPlantedComponent planted,
+                                BlockComponent block) {
+        if (newlyPlantedHerbs.remove(herb)) {
+            return;
+        }
+
+        Vector3i chunkPos = Chunks.toChunkPos(block.getPosition(new Vector3i()), new Vector3i());
+        pendingHerbs.computeIfAbsent(chunkPos, key -> Lists.newArrayList()).add(herb);
+    }
+
+    /**
+     * Once a chunk has finished loading, move all of its queued herbs to the growth stage they should be in by now.
+     *
+     * @param event         Details of the loaded chunk.
+     * @param worldEntity   The world entity.
+     */
+    @ReceiveEvent(components = WorldComponent.class)
+    public void onChunkLoaded(OnChunkLoaded event, EntityRef worldEntity) {
+        List<EntityRef> herbs = pendingHerbs.remove(new Vector3i(event.getChunkPos()));
+        if (herbs != null) {
+            catchUpGrowth(herbs);
+        }
+    }
+
+    /**
+     * If a chunk is unloaded again before it finished loading, forget about its queued herbs.
+     *
+     * @param event         Details of the chunk being unloaded.
+     * @param worldEntity   The world entity.
+     */
+    @ReceiveEvent(components = WorldComponent.class)
+    public void onChunkUnload(BeforeChunkUnload event, EntityRef worldEntity) {
+        Vector3i chunkPos = new Vector3i(event.getChunkPos());
+        pendingHerbs.remove(chunkPos);
+
+        // Fresh plants of this chunk that were never activated won't be anymore.
+        Vector3i herbChunkPos = new Vector3i();
+        newlyPlantedHerbs.removeIf(herb -> {
+            BlockComponent block = herb.getComponent(BlockComponent.class);
+            return block == null || Chunks.toChunkPos(block.getPosition(new Vector3i()), herbChunkPos).equals(chunkPos);
+        });
+    }
+
+    /**
+     * When a herb's next growth stage is due, move it on to the stage it should be in by now.
+     *
+     * @param event     Details of the delayed action.
+     * @param herb      The planted herb block entity.
+     * @param planted   The planting details of the herb.
+     */
+    @ReceiveEvent
+    public void onGrowthDue(DelayedActionTriggeredEvent event, EntityRef herb, HerbPlantedComponent planted) {
+        if (event.getActionId().equals(GROWTH_ACTION)) {
+            catchUpGrowth(Collections.singletonList(herb));
+        }
+    }
+
+    /**
+     * Check whether a herb is due to move on to the given growth stage, based on when it was planted.
+     *
+     * @param position      World position of the herb.
+     * @param planted       The planting details of the herb.
+     * @param nextStage     Index into {@link HerbAGrowthDefinition#PLANT_STAGES} of the stage the herb would move to.
+     * @return              True if the herb should move on to the given stage now. False otherwise.
+     */
+    public boolean isStageDue(Vector3ic position, HerbPlantedComponent planted, int nextStage) {
+        final int seed = HerbAGrowthDefinition.getGrowthSeed(position, planted.plantedTime);
+        final long elapsedTime = time.getGameTimeInMs() - planted.plantedTime;
+        return nextStage < 0 || HerbAGrowthDefinition.getStageAt(seed, elapsedTime) >= nextStage;
+    }
+
+    /**
+     * Compute the current growth stage of each of the given herbs and apply all the resulting block changes at once.
+     *
+     * @param herbs     The planted herb block entities to update.
+     */
+    private void catchUpGrowth(List<EntityRef> herbs) {
+        final long gameTime = time.getGameTimeInMs();
+        final List<BlockUri> stages = HerbAGrowthDefinition.PLANT_STAGES;
+
+        Map<Vector3ic, Block> blockChanges = Maps.newHashMap();
+        Map<Vector3ic, GenomeComponent> genomes = Maps.newHashMap();
+        Map<Vector3ic, HerbPlantedComponent> plantings = Maps.newHashMap();
+
+        for (EntityRef herb : herbs) {
+            HerbPlantedComponent planted = herb.getComponent(HerbPlantedComponent.class);
+            BlockComponent block = herb.getComponent(BlockComponent.class);
+            if (planted == null || block == null) {
+                continue;
+            }
+
+            Vector3i position = block.getPosition(new Vector3i());
+            int currentStage = stages.indexOf(worldProvider.getBlock(position).getURI());
+            if (currentStage < 0 || currentStage == stages.size() - 1) {
+                continue;
+            }
+
+            // A herb that can't grow under the local climate stays where it is.
+            if (!HerbAGrowthDefinition.canGrow(climateConditionsSystem.getHumidity(position.x, position.y, position.z),
+                    climateConditionsSystem.getTemperature(position.x, position.y, position.z))) {
+                continue;
+            }
+
+            int seed = HerbAGrowthDefinition.getGrowthSeed(position, planted.plantedTime);
+            int targetStage = HerbAGrowthDefinition.getStageAt(seed, gameTime - planted.plantedTime);
+            if (targetStage <= currentStage) {
+                continue;
+            }
+
+            blockChanges.put(position, blockManager.getBlock(stages.get(targetStage)));
+
+            // The withered plant doesn't keep its genome, the same as during regular growth.
+            if (targetStage < stages.size() - 1) {
+                GenomeComponent genome = herb.getComponent(GenomeComponent.class);
+                if (genome != null) {
+                    genomes.put(position, HerbGenomeInterner.copyGenome(genome));
+                }
+                HerbPlantedComponent plantedCopy = new HerbPlantedComponent();
+                plantedCopy.copyFrom(planted);
+                plantings.put(position, plantedCopy);
+            }
+        }
+
+        if (blockChanges.isEmpty()) {
+            return;
+        }
+
+        worldProvider.setBlocks(blockChanges);
+
+        // Carry the genome and planting time over to the replacement block entities. A growth timer persisted with the
+        // old block may not survive the replacement, so each of them is re-armed for its next stage.
+        for (Map.Entry<Vector3ic, HerbPlantedComponent> entry : plantings.entrySet()) {
+            EntityRef blockEntity = blockEntityRegistry.getEntityAt(entry.getKey());
+            GenomeComponent genome = genomes.get(entry.getKey());
+            if (genome != null) {
+                blockEntity.addComponent(genome);
+            }
+            blockEntity.addComponent(entry.getValue());
+            scheduleGrowth(blockEntity, entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Re-check a herb's growth once its next stage is due, replacing any re-check that was scheduled before.
+     *
+     * @param herb      The planted herb block entity.
+     * @param position  World position of the herb.
+     * @param planted   The planting details of the herb.
+     */
+    public void scheduleGrowth(EntityRef herb, Vector3ic position, HerbPlantedComponent planted) {
+        final int seed = HerbAGrowthDefinition.getGrowthSeed(position, planted.plantedTime);
+        final long delay = HerbAGrowthDefinition.getTimeUntilNextStage(seed, time.getGameTimeInMs() - planted.plantedTime);
+        if (delay >= 0) {
+            delayManager.cancelDelayedAction(herb, GROWTH_ACTION);
+            delayManager.addDelayedAction(herb, GROWTH_ACTION, delay);
+        }
+    }
+}
@@ -5,6 +5,7 @@ package org.terasology.herbalism.system;
 import org.joml.Vector3i;
 import org.terasology.anotherWorldPlants.farm.component.FarmSoilComponent;
 import org.terasology.anotherWorldPlants.farm.event.SeedPlanted;
+import org.terasology.engine.core.Time;
 import org.terasology.engine.entitySystem.entity.EntityRef;
 import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
 import org.terasology.engine.entitySystem.systems.RegisterMode;
@@ -19,7 +20,9 @@ import org.terasology.genome.component.GenomeComponent;
 import org.terasology.genome.system.GenomeManager;
 import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
 import org.terasology.gf.PlantedSaplingComponent;
+import org.terasology.herbalism.HerbGenomeInterner;
 import org.terasology.herbalism.Herbalism;
+import org.terasology.herbalism.component.HerbPlantedComponent;
 import org.terasology.herbalism.component.PollinatingHerbComponent;
 import org.terasology.randomUpdate.RandomUpdateEvent;
 
@@ -34,9 +37,11 @@ public class HerbalismAuthoritySystem extends BaseComponentSystem {
     private WorldProvider worldProvider;
     @In
     private BlockEntityRegistry blockEntityRegistry;
+    @In
+    private Time time;
 
     /**
-     * When an herb is planted, add a genome component to it.
+     * When an herb is planted, add a genome component to it, and record when it was planted.
      *
      * @param event             Details of the herb seed being planted.
      * @param seedItem          The herb seed item itself.
@@ -47,11 +52,10 @@ public class HerbalismAuthoritySystem extends BaseComponentSystem {
         Vector3i location = event.getLocation();
         EntityRef plantedEntity = blockEntityRegistry.getEntityAt(location);
 
-        GenomeComponent genome = new GenomeComponent();
-        genome.genomeId = genomeComponent.genomeId;
-        genome.genes = genomeComponent.genes;
+        GenomeComponent genome = HerbGenomeInterner.copyGenome(genomeComponent);
 
         plantedEntity.addComponent(genome);
+        plantedEntity.addComponent(createPlantedComponent());
     }
 
     /**
@@ -91,6 +95,7 @@ public class HerbalismAuthoritySystem extends BaseComponentSystem {
                                 worldProvider.setBlock(plantLocation, plantedBlock);
                                 EntityRef plantedHerbEntity = blockEntityRegistry.getEntityAt(plantLocation);
                                 plantedHerbEntity.addComponent(new PlantedSaplingComponent());
+                                plantedHerbEntity.addComponent(createPlantedComponent());
                                 genomeManager.applyBreeding(herb, secondHerb, plantedHerbEntity);
                                 return;
                             }
@@ -100,4 +105,15 @@ public class HerbalismAuthoritySystem extends BaseComponentSystem {
             }
         }
     }
+
+    /**
+     * Create a component marking a herb as planted at the current game time.
+     *
+     * @return  The new HerbPlantedComponent.
+     */
+    private HerbPlantedComponent createPlantedComponent() {
+        HerbPlantedComponent planted = new HerbPlantedComponent();
+        planted.plantedTime = time.getGameTimeInMs();
+        return planted;
+    }
 }
@@ -0,0 +1,188 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.herbalism.system;
+
+import org.terasology.alchemy.Alchemy;
+import com.google.common.collect.Sets;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.BeforeRemoveComponent;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnActivatedComponent;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnChangedComponent;
+import org.terasology.engine.entitySystem.event.EventPriority;
+import org.terasology.engine.entitySystem.event.Priority;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.entitySystem.systems.UpdateSubscriberSystem;
+import org.terasology.engine.registry.In;
+import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
+import org.terasology.herbalism.component.HerbalismBrewQueueComponent;
+import org.terasology.workstation.component.WorkstationComponent;
+import org.terasology.workstation.component.WorkstationProcessingComponent;
+import org.terasology.workstation.event.WorkstationProcessRequest;
+import org.terasology.workstation.process.WorkstationProcess;
+import org.terasology.workstation.system.WorkstationRegistry;
+
+import java.util.Set;
+
+/**
+ * Authority system for managing the brewing queues of HerbalismStations. Brews requested while a station is busy are
+ * queued, and the next queued brew is started as soon as the station finishes its current one.
+ * <p>
+ * Rather than scheduling a delayed action per station, the stations that may need to start their next brew are kept in
+ * a single set, and all of them are handled in one pass on the next tick. Heat, fuel burn and process completion are
+ * still updated per station by the Heat and Workstation modules.
+ */
+@RegisterSystem(value = RegisterMode.AUTHORITY)
+public class HerbalismBrewQueueAuthoritySystem extends BaseComponentSystem implements UpdateSubscriberSystem {
+    @In
+    private WorkstationRegistry workstationRegistry;
+
+    /** The stations to check on the next tick, in the order they became pending. */
+    private Set<EntityRef> pendingStations = Sets.newLinkedHashSet();
+
+    /** The stations being handled during the current tick. This is swapped with the pending set on every tick. */
+    private Set<EntityRef> handledStations = Sets.newLinkedHashSet();
+
+    /**
+     * When a brew is requested at a station that's already brewing, add it to the station's queue instead. The request
+     * is consumed, so the brew isn't also started right away. Requests made while the queue is full are dropped.
+     *
+     * @param event         Details of the process request.
+     * @param instigator    The character requesting the process.
+     */
+    @Priority(EventPriority.PRIORITY_HIGH)
+    @ReceiveEvent
+    public void onProcessRequested(WorkstationProcessRequest event, EntityRef instigator) {
+        final EntityRef station = event.getWorkstation();
+        HerbalismBrewQueueComponent queue = station.getComponent(HerbalismBrewQueueComponent.class);
+        if (queue == null || !isBrewing(station) || !isHerbalismProcess(station, event.getProcessId())) {
+            return;
+        }
+
+        if (queue.queuedBrews.size() < queue.maxQueueSize) {
+            queue.queuedBrews.add(new HerbalismBrewQueueComponent.QueuedBrew(instigator, event.getProcessId(), event.getResultId()));
+            station.saveComponent(queue);
+        }
+        event.consume();
+    }
+
+    /**
+     * When a station with queued brews is loaded, resume its queue.
+     *
+     * @param event     Details of the component activation.
+     * @param station   The station entity.
+     * @param queue     The station's brewing queue.
+     */
+    @ReceiveEvent
+    public void onQueueActivated(OnActivatedComponent event, EntityRef station, HerbalismBrewQueueComponent queue) {
+        scheduleNextBrew(station, queue);
+    }
+
+    /**
+     * When one of a station's processes changes, check whether the next queued brew can be started.
+     *
+     * @param event         Details of the component change.
+     * @param station       The station entity.
+     * @param processing    The station's running processes.
+     * @param queue         The station's brewing queue.
+     */
+    @ReceiveEvent
+    public void onProcessingChanged(OnChangedComponent event, EntityRef station, WorkstationProcessingComponent processing,
+                                    HerbalismBrewQueueComponent queue) {
+        scheduleNextBrew(station, queue);
+    }
+
+    /**
+     * When a station's last process finishes, check whether the next queued brew can be started.
+     *
+     * @param event         Details of the component removal.
+     * @param station       The station entity.
+     * @param processing    The station's running processes.
+     * @param queue         The station's brewing queue.
+     */
+    @ReceiveEvent
+    public void onProcessingRemoved(BeforeRemoveComponent event, EntityRef station, WorkstationProcessingComponent processing,
+                                    HerbalismBrewQueueComponent queue) {
+        scheduleNextBrew(station, queue);
+    }
+
+    /**
+     * Start the next queued brew of every station that finished brewing since the last tick.
+     *
+     * @param delta     The time (in seconds) since the last engine update.
+     */
+    @Override
+    public void update(float delta) {
+        if (pendingStations.isEmpty()) {
+            return;
+        }
+
+        // Stations that become pending while handling these ones are left for the next tick.
+        final Set<EntityRef> stations = pendingStations;
+        pendingStations = handledStations;
+        handledStations = stations;
+
+        for (EntityRef station : stations) {
+            HerbalismBrewQueueComponent queue = station.getComponent(HerbalismBrewQueueComponent.class);
+            if (queue != null) {
+                startNextBrew(station, queue);
+            }
+        }
+        stations.clear();
+    }
+
+    /**
+     * Start the queued brews one by one, until one of them is accepted by the station. Brews that can no longer be made
+     * (for example because their ingredients were taken out) are dropped from the queue. The queue component is only
+     * saved if it actually changed.
+     *
+     * @param station   The station entity.
+     * @param queue     The station's brewing queue.
+     */
+    private void startNextBrew(EntityRef station, HerbalismBrewQueueComponent queue) {
+        boolean changed = false;
+        while (!queue.queuedBrews.isEmpty() && !isBrewing(station)) {
+            HerbalismBrewQueueComponent.QueuedBrew brew = queue.queuedBrews.remove(0);
+            changed = true;
+
+            // Request the brew on behalf of the character that queued it, as long as they're still around.
+            EntityRef instigator = brew.instigator.exists() ? brew.instigator : station;
+            instigator.send(new WorkstationProcessRequest(station, brew.processId, brew.resultId));
+        }
+
+        if (changed && station.exists()) {
+            station.saveComponent(queue);
+        }
+    }
+
+    /**
+     * Schedule starting the next brew on the next tick, once the station's current process has been cleaned up.
+     *
+     * @param station   The station entity.
+     * @param queue     The station's brewing queue.
+     */
+    private void scheduleNextBrew(EntityRef station, HerbalismBrewQueueComponent queue) {
+        if (!queue.queuedBrews.isEmpty()) {
+            pendingStations.add(station);
+        }
+    }
+
+    private boolean isBrewing(EntityRef station) {
+        WorkstationProcessingComponent processing = station.getComponent(WorkstationProcessingComponent.class);
+        return processing != null && processing.processes.containsKey(Alchemy.HERBALISM_PROCESS_TYPE);
+    }
+
+    private boolean isHerbalismProcess(EntityRef station, String processId) {
+        WorkstationComponent workstation = station.getComponent(WorkstationComponent.class);
+        if (workstation == null) {
+            return false;
+        }
+        for (WorkstationProcess process : workstationRegistry.getWorkstationProcesses(workstation.supportedProcessTypes.keySet())) {
+            if (process.getId().equals(processId)) {
+                return process.getProcessType().equals(Alchemy.HERBALISM_PROCESS_TYPE);
+            }
+        }
+        return false;
+    }
+}
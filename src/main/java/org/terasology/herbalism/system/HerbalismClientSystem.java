@@ -2,6 +2,7 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.terasology.herbalism.system;
 
+import com.google.common.collect.Maps;
 import org.terasology.anotherWorldPlants.farm.component.SeedComponent;
 import org.terasology.engine.entitySystem.entity.EntityRef;
 import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
@@ -15,17 +16,55 @@ import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
 import org.terasology.herbalism.Herbalism;
 import org.terasology.herbalism.component.HerbComponent;
 import org.terasology.module.inventory.ui.GetItemTooltip;
+import org.terasology.nui.skin.UISkin;
 import org.terasology.nui.widgets.TooltipLine;
 import org.terasology.potions.component.PotionComponent;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Client system for Herbalism that handles tooltips.
+ * <p>
+ * Tooltips are requested every frame while an item is hovered, so the herb names of genomes and the resulting tooltip
+ * lines are cached. The caches are dropped whenever this system is started or stopped, and the tooltip lines are also
+ * dropped if the skin they use was disposed.
  */
 @RegisterSystem(RegisterMode.CLIENT)
 public class HerbalismClientSystem extends BaseComponentSystem {
+    /** Maximum number of herb names or tooltip lines to keep. The caches are emptied when they grow beyond this. */
+    private static final int MAX_CACHE_SIZE = 1024;
+
+    /** Tooltip lines mapped by herb name. */
+    private static final Map<String, TooltipLine> TOOLTIP_LINES = new ConcurrentHashMap<>();
+
+    /** The skin used for the herb tooltip lines, resolved once. */
+    private static volatile UISkin herbTooltipSkin;
+
     @In
     private GenomeManager genomeManager;
 
+    /**
+     * Herb names mapped by genome ID, and then by genes. The genome Strings are interned, so looking them up doesn't
+     * need to build a combined key.
+     */
+    private Map<String, Map<String, String>> herbNames = Maps.newHashMap();
+
+    /** Total number of herb names in the cache. */
+    private int herbNameCount;
+
+    @Override
+    public void initialise() {
+        clearTooltipCache();
+    }
+
+    @Override
+    public void shutdown() {
+        clearTooltipCache();
+        herbNames.clear();
+        herbNameCount = 0;
+    }
+
     /**
      * Modify the herb item's tooltip to add information about its genome.
      * @param tooltip   The item's current tooltip. This is displayed when mousing over the item.
@@ -35,7 +74,7 @@ public class HerbalismClientSystem extends BaseComponentSystem {
      */
     @ReceiveEvent
     public void getHerbTooltip(GetItemTooltip tooltip, EntityRef item, HerbComponent herb, GenomeComponent genome) {
-        appendSpecie(tooltip, item);
+        appendSpecie(tooltip, item, genome);
     }
 
     /**
@@ -47,7 +86,7 @@ public class HerbalismClientSystem extends BaseComponentSystem {
      */
     @ReceiveEvent
     public void getHerbTooltip(GetItemTooltip tooltip, EntityRef item, SeedComponent seed, GenomeComponent genome) {
-        appendSpecie(tooltip, item);
+        appendSpecie(tooltip, item, genome);
     }
 
     /**
@@ -59,7 +98,7 @@ public class HerbalismClientSystem extends BaseComponentSystem {
      */
     @ReceiveEvent
     public void getHerbTooltip(GetItemTooltip tooltip, EntityRef item, PotionComponent potion, GenomeComponent genome) {
-        appendSpecie(tooltip, item);
+        appendSpecie(tooltip, item, genome);
     }
 
     /**
@@ -67,18 +106,54 @@ public class HerbalismClientSystem extends BaseComponentSystem {
      *
      * @param tooltip   The item's current tooltip.
      * @param item      Reference to the item entity.
+     * @param genome    Genome component of the item.
      */
-    private void appendSpecie(GetItemTooltip tooltip, EntityRef item) {
-        String herbName = genomeManager.getGenomeProperty(item, Herbalism.NAME_PROPERTY, String.class);
+    private void appendSpecie(GetItemTooltip tooltip, EntityRef item, GenomeComponent genome) {
+        Map<String, String> namesByGenes = herbNames.get(genome.genomeId);
+        String herbName = namesByGenes != null ? namesByGenes.get(genome.genes) : null;
+        if (herbName == null && (namesByGenes == null || !namesByGenes.containsKey(genome.genes))) {
+            if (herbNameCount >= MAX_CACHE_SIZE) {
+                herbNames.clear();
+                herbNameCount = 0;
+                namesByGenes = null;
+            }
+            if (namesByGenes == null) {
+                namesByGenes = Maps.newHashMap();
+                herbNames.put(genome.genomeId, namesByGenes);
+            }
+            herbName = genomeManager.getGenomeProperty(item, Herbalism.NAME_PROPERTY, String.class);
+            namesByGenes.put(genome.genes, herbName);
+            herbNameCount++;
+        }
         tooltip.getTooltipLines().add(getHerbTooltipLine(herbName));
     }
 
     /**
-     * Get a custom tooltip line with a unique skin for herbs.
+     * Get a custom tooltip line with a unique skin for herbs. The same line is returned for every herb of the same name.
      * @param herbName  Name of the herb.
      * @return          The customized tooltip line.
      */
     public static TooltipLine getHerbTooltipLine(String herbName) {
-        return new TooltipLine("Specie: " + herbName, Assets.getSkin("Alchemy:herbTooltip").get());
+        UISkin skin = herbTooltipSkin;
+        if (skin == null || skin.isDisposed()) {
+            // The lines created so far use the old skin, so they have to be created again as well.
+            TOOLTIP_LINES.clear();
+            skin = Assets.getSkin("Alchemy:herbTooltip").get();
+            herbTooltipSkin = skin;
+        }
+
+        if (TOOLTIP_LINES.size() >= MAX_CACHE_SIZE) {
+            TOOLTIP_LINES.clear();
+        }
+        final UISkin lineSkin = skin;
+        return TOOLTIP_LINES.computeIfAbsent(String.valueOf(herbName), name -> new TooltipLine("Specie: " + name, lineSkin));
+    }
+
+    /**
+     * Forget all of the cached tooltip lines and the resolved skin, so that they're created again from the current assets.
+     */
+    public static void clearTooltipCache() {
+        TOOLTIP_LINES.clear();
+        herbTooltipSkin = null;
     }
 }
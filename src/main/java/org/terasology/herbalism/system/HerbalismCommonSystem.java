@@ -76,7 +76,7 @@ public class HerbalismCommonSystem extends BaseComponentSystem {
         herbEffectRegistry.registerHerbEffect(1f, new AlterationToHerbEffectWrapper(new DamageOverTimeAlterationEffect(context), 1f, 1f));
         herbEffectRegistry.registerHerbEffect(1f, new AlterationToHerbEffectWrapper(new CureAllDamageOverTimeAlterationEffect(context), 1f, 1f));
 
-        // Defining a herb name provider.
+        // Defining a herb name provider. Its name generators are only trained once the first herb name is needed.
         final HerbNameProvider herbNameProvider = new HerbNameProvider(worldProvider.getSeed().hashCode());
 
         int genomeLength = 10;
@@ -0,0 +1,159 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.herbalism.system;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.terasology.alchemy.system.InventoryVersionSystem;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.registry.In;
+import org.terasology.engine.registry.Share;
+import org.terasology.herbalism.component.HerbComponent;
+import org.terasology.herbalism.ui.HerbalismCraftingStationRecipe;
+import org.terasology.module.inventory.systems.InventoryUtils;
+import org.terasology.potions.component.EmptyPotionComponent;
+import org.terasology.workstation.component.WorkstationInventoryComponent;
+import org.terasology.workstationCrafting.component.CraftingStationIngredientComponent;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This system indexes the HerbalismStation recipes by the ingredient types they require. For each station, only the
+ * recipes whose ingredients are all present in the station's input slots are considered as candidates, so the other
+ * recipes can skip evaluating their ingredient behaviours.
+ */
+@RegisterSystem
+@Share(HerbalismRecipeIndex.class)
+public class HerbalismRecipeIndex extends BaseComponentSystem {
+    @In
+    private InventoryVersionSystem inventoryVersions;
+
+    /** Recipes mapped by each of the (lower case) ingredient types they require. */
+    private Map<String, Set<HerbalismCraftingStationRecipe>> recipesByIngredient = Maps.newHashMap();
+
+    /** The ingredients and candidate recipes of each station, as of the last time they were checked. */
+    private Map<EntityRef, StationIngredients> stationIngredients = Maps.newHashMap();
+
+    /**
+     * Add a recipe to the index.
+     *
+     * @param recipe    The HerbalismStation recipe to add.
+     */
+    public void addRecipe(HerbalismCraftingStationRecipe recipe) {
+        for (String type : recipe.getRequiredIngredients().keySet()) {
+            recipesByIngredient.computeIfAbsent(type, key -> Sets.newHashSet()).add(recipe);
+        }
+
+        // Only the stations that already hold enough ingredients gain the new recipe as a candidate.
+        for (StationIngredients ingredients : stationIngredients.values()) {
+            if (ingredients.hasAll(recipe.getRequiredIngredients())) {
+                ingredients.candidates.add(recipe);
+            }
+        }
+    }
+
+    /**
+     * Remove a recipe from the index. Stations will no longer consider it as a candidate.
+     *
+     * @param recipe    The HerbalismStation recipe to remove.
+     */
+    public void removeRecipe(HerbalismCraftingStationRecipe recipe) {
+        for (String type : recipe.getRequiredIngredients().keySet()) {
+            Set<HerbalismCraftingStationRecipe> recipes = recipesByIngredient.get(type);
+            if (recipes != null) {
+                recipes.remove(recipe);
+            }
+        }
+        for (StationIngredients ingredients : stationIngredients.values()) {
+            ingredients.candidates.remove(recipe);
+        }
+    }
+
+    /**
+     * Check whether the given recipe could match the current contents of a station. If this returns false, the recipe
+     * definitely doesn't match.
+     *
+     * @param station   The station entity.
+     * @param recipe    The recipe to check.
+     * @return          True if the station contains enough of every ingredient type the recipe needs. False otherwise.
+     */
+    public boolean isCandidate(EntityRef station, HerbalismCraftingStationRecipe recipe) {
+        final long version = inventoryVersions.getVersion(station);
+
+        StationIngredients ingredients = stationIngredients.get(station);
+        if (ingredients == null || ingredients.version != version) {
+            if (ingredients == null) {
+                // Forget about stations that no longer exist before adding a new one.
+                stationIngredients.keySet().removeIf(entity -> !entity.exists());
+            }
+            ingredients = collectIngredients(station, version);
+            stationIngredients.put(station, ingredients);
+        }
+        return ingredients.candidates.contains(recipe);
+    }
+
+    /**
+     * Count the ingredient types in the station's input slots, and look up the recipes they could be used for.
+     *
+     * @param station   The station entity.
+     * @param version   The current inventory version of the station.
+     * @return          The station's ingredients and candidate recipes.
+     */
+    private StationIngredients collectIngredients(EntityRef station, long version) {
+        StationIngredients ingredients = new StationIngredients(version);
+
+        WorkstationInventoryComponent inventory = station.getComponent(WorkstationInventoryComponent.class);
+        WorkstationInventoryComponent.SlotAssignment input = inventory != null ? inventory.slotAssignments.get("INPUT") : null;
+        if (input == null) {
+            return ingredients;
+        }
+
+        for (int slot = input.slotStart; slot < input.slotStart + input.slotCount; slot++) {
+            EntityRef item = InventoryUtils.getItemAt(station, slot);
+            CraftingStationIngredientComponent ingredient = item.getComponent(CraftingStationIngredientComponent.class);
+            if (ingredient != null && (item.hasComponent(HerbComponent.class) || item.hasComponent(EmptyPotionComponent.class))) {
+                ingredients.counts.merge(ingredient.type.toLowerCase(Locale.ROOT), InventoryUtils.getStackCount(item), Integer::sum);
+            }
+        }
+
+        for (String type : ingredients.counts.keySet()) {
+            for (HerbalismCraftingStationRecipe recipe : recipesByIngredient.getOrDefault(type, Sets.newHashSet())) {
+                if (!ingredients.candidates.contains(recipe) && ingredients.hasAll(recipe.getRequiredIngredients())) {
+                    ingredients.candidates.add(recipe);
+                }
+            }
+        }
+        return ingredients;
+    }
+
+    /**
+     * This internal class is used to store the ingredients present in a single station.
+     */
+    private static final class StationIngredients {
+        /** Inventory version of the station these ingredients were collected at. */
+        private final long version;
+
+        /** Total count of each (lower case) ingredient type in the station's input slots. */
+        private final Map<String, Integer> counts = Maps.newHashMap();
+
+        /** The recipes that could match these ingredients. */
+        private final Set<HerbalismCraftingStationRecipe> candidates = Sets.newHashSet();
+
+        private StationIngredients(long version) {
+            this.version = version;
+        }
+
+        private boolean hasAll(Map<String, Integer> required) {
+            for (Map.Entry<String, Integer> entry : required.entrySet()) {
+                if (counts.getOrDefault(entry.getKey(), 0) < entry.getValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -3,15 +3,21 @@
 package org.terasology.herbalism.ui;
 
 import com.google.common.base.Predicate;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import org.terasology.durability.components.DurabilityComponent;
 import org.terasology.engine.entitySystem.entity.EntityRef;
 import org.terasology.engine.entitySystem.prefab.Prefab;
 import org.terasology.engine.registry.CoreRegistry;
-import org.terasology.engine.utilities.Assets;
 import org.terasology.genome.component.GenomeComponent;
 import org.terasology.genome.system.GenomeManager;
+import org.terasology.herbalism.HerbGenomeInterner;
+import org.terasology.herbalism.HerbParameter;
 import org.terasology.herbalism.Herbalism;
+import org.terasology.herbalism.PotionBottleParameter;
+import org.terasology.herbalism.ResolvedPrefabCache;
 import org.terasology.herbalism.system.HerbalismClientSystem;
+import org.terasology.herbalism.system.HerbalismRecipeIndex;
 import org.terasology.herbalism.system.HerbalismStationIngredientPredicate;
 import org.terasology.module.inventory.ui.ItemIcon;
 import org.terasology.nui.widgets.TooltipLine;
@@ -26,26 +32,68 @@ import org.terasology.workstationCrafting.system.recipe.render.result.ItemRecipe
 import org.terasology.workstationCrafting.system.recipe.workstation.AbstractWorkstationRecipe;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * A custom workstation recipe format for herbalism related recipes. Note that this is only intended to be used with the
  * HerbalismCraftingStations. Potions specifically.
  */
 public class HerbalismCraftingStationRecipe extends AbstractWorkstationRecipe {
+    /** Separator between the batch size and the recipe ID in the process ID of a batch. */
+    private static final char BATCH_SEPARATOR = '*';
+
+    /** Amount of water consumed for every potion brewed. */
+    private static final float WATER_PER_POTION = 0.2f;
+
+    /** Total count of each (lower case) ingredient type this recipe consumes. */
+    private final Map<String, Integer> requiredIngredients = Maps.newHashMap();
+
+    /** Number of potions brewed by a single process of this recipe. */
+    private final int batchSize;
+
     /**
      * Create the Herbalism Crafting Station's recipe based on the assigned CraftingStationRecipeComponent (i.e. the recipe parameters).
      *
-     * @param recipe The titular recipe applicable to this HerbalismStation.
+     * @param recipe        The titular recipe applicable to this HerbalismStation.
+     * @param prefabCache   Cache used to resolve the prefabs the recipe refers to.
      */
-    public HerbalismCraftingStationRecipe(CraftingStationRecipeComponent recipe) {
+    public HerbalismCraftingStationRecipe(CraftingStationRecipeComponent recipe, ResolvedPrefabCache prefabCache) {
+        this(recipe, 1, prefabCache);
+    }
+
+    /**
+     * Create a Herbalism Crafting Station's recipe that brews a whole batch of potions in a single process. It consumes
+     * the ingredients and water of every potion in the batch, but its processing time only grows with the square root of
+     * the batch size.
+     *
+     * @param recipe        The titular recipe applicable to this HerbalismStation.
+     * @param batchSize     Number of potions to brew at once.
+     * @param prefabCache   Cache used to resolve the prefabs the recipe refers to.
+     */
+    public HerbalismCraftingStationRecipe(CraftingStationRecipeComponent recipe, int batchSize,
+                                          ResolvedPrefabCache prefabCache) {
+        this.batchSize = batchSize;
         String oldPotionContainerName = "";
 
+        // Split each of the recipe components into its count and type once.
+        final int componentCount = recipe.recipeComponents.size();
+        int[] counts = new int[componentCount];
+        String[] types = new String[componentCount];
+        for (int i = 0; i < componentCount; i++) {
+            String[] split = recipe.recipeComponents.get(i).split("\\*");
+            counts[i] = Integer.parseInt(split[0]) * batchSize;
+            types[i] = split[1];
+            requiredIngredients.merge(types[i].toLowerCase(Locale.ROOT), counts[i], Integer::sum);
+        }
+
         // Search through the recipe components to find the first empty potion bottle. If it's found, break out of the loop.
         // Otherwise, the oldPotionContainerName will be an empty string.
-        for (String component : recipe.recipeComponents) {
-            oldPotionContainerName = component.split("\\*")[1];
-            Prefab potionTest = Assets.getPrefab(oldPotionContainerName).get();
+        for (String type : types) {
+            oldPotionContainerName = type;
+            Prefab potionTest = prefabCache.get(oldPotionContainerName);
             if (potionTest != null && !potionTest.hasComponent(EmptyPotionComponent.class)) {
                 break;
             } else {
@@ -54,25 +102,25 @@ public class HerbalismCraftingStationRecipe extends AbstractWorkstationRecipe {
         }
 
         // Add the fluid behavior and required heat and duration based on the recipe's parameters.
-        addFluidBehaviour(new ConsumeFluidBehaviour("CoreAssets:Water", 0.2f, new InventorySlotTypeResolver("FLUID_INPUT")));
+        addFluidBehaviour(new ConsumeFluidBehaviour("CoreAssets:Water", WATER_PER_POTION * batchSize,
+                new InventorySlotTypeResolver("FLUID_INPUT")));
         setRequiredHeat(recipe.requiredTemperature);
-        setProcessingDuration(recipe.processingDuration);
+        setProcessingDuration(Math.round(recipe.processingDuration * Math.sqrt(batchSize)));
 
         // Create and set the custom result factory.
-        PotionRecipeResultFactory potionRecipeResultFactory = new PotionRecipeResultFactory(Assets.getPrefab(recipe.recipeId).get(),
-                recipe.itemResult.split("\\*")[1], 1, oldPotionContainerName);
+        PotionRecipeResultFactory potionRecipeResultFactory = new PotionRecipeResultFactory(prefabCache.get(recipe.recipeId),
+                recipe.itemResult.split("\\*")[1], batchSize, oldPotionContainerName);
         setResultFactory(potionRecipeResultFactory);
 
         // Add each of the ingredient (consumption) behaviors by parsing through the recipe components.
-        for (String component : recipe.recipeComponents) {
-            String[] split = component.split("\\*");
-            int count = Integer.parseInt(split[0]);
-            String type = split[1];
+        for (int i = 0; i < componentCount; i++) {
+            int count = counts[i];
+            String type = types[i];
 
             // If the first item in this recipe is an empty potion container, add it as a ConsumePotionContainerBehaviour.
             if (!oldPotionContainerName.equals("")) {
                 addIngredientBehaviour(new ConsumePotionContainerBehaviour(new HerbalismStationIngredientPredicate(type), count,
-                        new InventorySlotTypeResolver("INPUT"), potionRecipeResultFactory));
+                        new InventorySlotTypeResolver("INPUT")));
             } else {
                 // Otherwise, add it as a herb.
                 addIngredientBehaviour(new ConsumeHerbIngredientBehaviour(new HerbalismStationIngredientPredicate(type), count,
@@ -81,6 +129,67 @@ public class HerbalismCraftingStationRecipe extends AbstractWorkstationRecipe {
         }
     }
 
+    /**
+     * Get the number of potions brewed by a single process of this recipe.
+     *
+     * @return  The batch size. This is 1 for regular recipes.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Get the ID of the workstation process brewing the given recipe.
+     *
+     * @param recipeId      ID of the recipe, which is the URI of the brewed potion's prefab.
+     * @param batchSize     Number of potions brewed by the process.
+     * @return              The process ID.
+     */
+    public static String getProcessId(String recipeId, int batchSize) {
+        return batchSize > 1 ? batchSize + String.valueOf(BATCH_SEPARATOR) + recipeId : recipeId;
+    }
+
+    /**
+     * Get the number of potions brewed by a workstation process of a herbalism recipe.
+     *
+     * @param processId     ID of the process.
+     * @return              The batch size. This is 1 for regular recipes.
+     */
+    public static int getBatchSize(String processId) {
+        final int end = processId.indexOf(BATCH_SEPARATOR);
+        return end > 0 ? Integer.parseInt(processId.substring(0, end)) : 1;
+    }
+
+    /**
+     * Get the recipe brewed by a workstation process of a herbalism recipe.
+     *
+     * @param processId     ID of the process.
+     * @return              ID of the recipe, which is the URI of the brewed potion's prefab.
+     */
+    public static String getRecipeId(String processId) {
+        return processId.substring(processId.indexOf(BATCH_SEPARATOR) + 1);
+    }
+
+    /**
+     * Get the ingredient types this recipe consumes.
+     *
+     * @return  A map of the (lower case) ingredient types to the total count of each that's required.
+     */
+    public Map<String, Integer> getRequiredIngredients() {
+        return Collections.unmodifiableMap(requiredIngredients);
+    }
+
+    /**
+     * Check whether this recipe could possibly match the ingredients in the given station, using the recipe index.
+     *
+     * @param station   The station entity.
+     * @return          False if the station definitely doesn't contain the ingredients for this recipe. True otherwise.
+     */
+    private boolean isCandidateFor(EntityRef station) {
+        HerbalismRecipeIndex recipeIndex = CoreRegistry.get(HerbalismRecipeIndex.class);
+        return recipeIndex == null || recipeIndex.isCandidate(station, this);
+    }
+
     /**
      * This internal class is used for creating and defining the resultant potion.
      */
@@ -93,16 +202,6 @@ public class HerbalismCraftingStationRecipe extends AbstractWorkstationRecipe {
         /**
          * Name of the potion's container to be used.
          */
-        private EntityRef potionBottleRef;
-        /**
-         * Reference to the current potion bottle.
-         */
-
-        private DurabilityComponent lastDurability;
-        /**
-         * Reference to the last potion bottle's durability.
-         */
-        private String lastPotionBottleName = "";    /** Name of the last potion bottle used. */
 
         /**
          * Constructor for when the potion doesn't use bottles and the toolTip can be the default one.
@@ -141,15 +240,6 @@ public class HerbalismCraftingStationRecipe extends AbstractWorkstationRecipe {
             oldPotionContainerName = oldContainerName;
         }
 
-        /**
-         * Set the reference to the current potion bottle.
-         * <p>
-         * #param ref   Reference to the potion bottle entity.
-         */
-        public void setPotionBottleRef(EntityRef ref) {
-            potionBottleRef = ref;
-        }
-
         /**
          * Setup the display of the resultant item. This includes the icon and description text.
          *
@@ -160,12 +250,12 @@ public class HerbalismCraftingStationRecipe extends AbstractWorkstationRecipe {
         public void setupDisplay(List<String> parameters, ItemIcon itemIcon) {
             super.setupDisplay(parameters, itemIcon);
 
-            final String herbParameter = parameters.get(0);
+            final HerbParameter herbParameter = HerbParameter.parse(parameters.get(0));
             String herbName = "";
 
-            // If the herb parameters are greater than or equal to 3, then it's a herb. Otherwise, it's something else.
-            if (herbParameter.split("\\|").length >= 3) {
-                herbName = herbParameter.split("\\|")[3];
+            // If the first parameter could be parsed as a herb, use its name. Otherwise, it's something else.
+            if (herbParameter != null) {
+                herbName = herbParameter.getHerbName();
             }
             itemIcon.setTooltipLines(
                     Arrays.asList(new TooltipLine(toolTip), HerbalismClientSystem.getHerbTooltipLine(herbName)));
@@ -182,59 +272,39 @@ public class HerbalismCraftingStationRecipe extends AbstractWorkstationRecipe {
         public EntityRef createResult(List<String> parameters, int multiplier) {
             // Extract the herb parameters.
             final EntityRef result = super.createResult(parameters, multiplier);
-            final String herbParameter = parameters.get(0);
-            final String[] herbSplit = herbParameter.split("\\|");
+            final HerbParameter herbParameter = HerbParameter.parse(parameters.get(0));
 
             String genomeId = "";
             String genes = "";
 
-            // If the split is greater than or equal to 3, then it's a herb. Otherwise, it's something else.
-            if (herbSplit.length >= 3) {
-                genomeId = herbSplit[1];
-                genes = herbSplit[2];
+            // If the first parameter could be parsed as a herb, copy its genome. Otherwise, it's something else.
+            if (herbParameter != null) {
+                genomeId = herbParameter.getGenomeId();
+                genes = herbParameter.getGenes();
             }
 
             // Add the genome component to the resultant item.
-            GenomeComponent genome = new GenomeComponent();
-            genome.genomeId = genomeId;
-            genome.genes = genes;
-            result.addComponent(genome);
+            result.addComponent(HerbGenomeInterner.createGenome(genomeId, genes));
 
             // If the resultant item is a potion, assign the durability of the empty potion bottle to the new potion.
+            // The bottle's details are taken from the parameters of this particular process, as this factory is shared by
+            // every station brewing this recipe.
             PotionComponent potionComponent = result.getComponent(PotionComponent.class);
             if (potionComponent != null) {
                 if (!oldPotionContainerName.equals("")) {
-                    DurabilityComponent potionBottleDurabilityComponent = null;
-
-                    if (potionBottleRef != null && potionBottleRef.exists()) {
-                        // If the current potion bottle ref exists, then copy the durability and name over to the appropriate instance
-                        // variables.
-                        potionBottleDurabilityComponent = potionBottleRef.getComponent(DurabilityComponent.class);
-                        lastDurability = potionBottleDurabilityComponent;
-                        lastPotionBottleName = potionBottleRef.getParentPrefab().getUrn().toString();
-                        potionComponent.bottlePrefab = lastPotionBottleName;
-                    } else {
-                        // Otherwise, use the last durability value as the potionBottleDurabilityComponent - i.e., the one to be
-                        // used for this potion. This is necessary as when there's only one bottle in the workstation input,
-                        // consuming it will cause the potionBottleRef to become non-existent. Hence, why I'm using the last
-                        // known values instead.
-                        potionBottleDurabilityComponent = lastDurability;
-                    }
+                    PotionBottleParameter bottleParameter = findBottleParameter(parameters);
 
-                    // Set the bottle prefab of the resultant potion to be the last known potion bottle name.
-                    // It's either taken from the entity ref, or from the recipe parameters list if the former is empty.
-                    if (!lastPotionBottleName.equals("")) {
-                        potionComponent.bottlePrefab = lastPotionBottleName;
+                    // Set the bottle prefab of the resultant potion to be the consumed bottle's prefab. If it's unknown,
+                    // use the container name from the recipe instead.
+                    if (bottleParameter != null) {
+                        potionComponent.bottlePrefab = bottleParameter.getBottlePrefab();
                     } else {
                         potionComponent.bottlePrefab = oldPotionContainerName;
                     }
 
-                    // Create a new Durability component, and copy over the values from the old bottle's Durability component,
-                    // as long as the last durability exists. Lastly, add this new component to the resultant potion.
-                    if (potionBottleDurabilityComponent != null) {
-                        DurabilityComponent durabilityComponent = new DurabilityComponent();
-                        durabilityComponent.durability = potionBottleDurabilityComponent.durability;
-                        durabilityComponent.maxDurability = potionBottleDurabilityComponent.maxDurability;
+                    // Copy over the values from the old bottle's Durability component, as long as it had one.
+                    DurabilityComponent durabilityComponent = bottleParameter != null ? bottleParameter.copyDurability() : null;
+                    if (durabilityComponent != null) {
                         result.addComponent(durabilityComponent);
                     }
                 }
@@ -242,34 +312,70 @@ public class HerbalismCraftingStationRecipe extends AbstractWorkstationRecipe {
 
             return result;
         }
+
+        /**
+         * Find the parameter of the potion bottle consumed by a process.
+         *
+         * @param parameters All of the recipe components of the process.
+         * @return The parsed parameter of the first potion bottle, or null if there is none.
+         */
+        private PotionBottleParameter findBottleParameter(List<String> parameters) {
+            for (String parameter : parameters) {
+                PotionBottleParameter bottleParameter = PotionBottleParameter.parse(parameter);
+                if (bottleParameter != null) {
+                    return bottleParameter;
+                }
+            }
+            return null;
+        }
     }
 
     /**
      * This internal class is used to define the custom consumption behavior of potion bottles during crafting.
      */
     private final class ConsumePotionContainerBehaviour extends ConsumeItemCraftBehaviour {
-        /**
-         * Reference to the potion crafting result factory.
-         */
-        private PotionRecipeResultFactory potionRecipeResultFactory;
-
         /**
          * Constructor which creates the baseline for this item consumption behavior.
          *
          * @param matcher Predicate matcher for filtering out items that are not empty potion containers.
          * @param count Number of potion containers to consume while crafting.
          * @param resolver To manage the inventory changes during this behavior.
-         * @param potionRecipeResultFactory Reference to the associated potion result factory.
          */
-        private ConsumePotionContainerBehaviour(Predicate<EntityRef> matcher, int count, InventorySlotResolver resolver,
-                                                PotionRecipeResultFactory potionRecipeResultFactory) {
+        private ConsumePotionContainerBehaviour(Predicate<EntityRef> matcher, int count, InventorySlotResolver resolver) {
             super(matcher, count, resolver);
-            this.potionRecipeResultFactory = potionRecipeResultFactory;
+        }
+
+        /**
+         * Get the parameters of all of the potion containers in the station that can be used for crafting. Stations that
+         * can't match this recipe are skipped without looking at their slots.
+         * <p>
+         * A batch only takes its empty bottles from a single stack. All the potions of a batch end up in one stack as
+         * well, so this is what lets each potion carry the durability of the bottle it was brewed in. Other ingredients,
+         * like herbs, may still be spread over several slots.
+         *
+         * @param entity        The station entity.
+         * @param multiplier    The consumption effects multiplier.
+         * @return              A list of the valid ingredient parameters.
+         */
+        @Override
+        public List<String> getValidToCraft(EntityRef entity, int multiplier) {
+            if (!isCandidateFor(entity)) {
+                return Collections.emptyList();
+            }
+
+            List<String> validToCraft = super.getValidToCraft(entity, multiplier);
+            if (batchSize > 1) {
+                validToCraft = Lists.newArrayList(validToCraft);
+                validToCraft.removeIf(parameter -> PotionBottleParameter.parse(parameter) != null
+                        && getSlots(parameter).size() > 1);
+            }
+            return validToCraft;
         }
 
         /**
          * Get the ingredient parameters and where they are located in the workstation's inventory, and return them as a String. If the
-         * current item being checked is an empty potion bottle, give the result factory class that information.
+         * current item being checked is an empty potion bottle, add its prefab and durability to the parameter String, so
+         * they're carried along with the process that consumes it.
          *
          * @param slots List of workstation inventory slots that the item is present in.
          * @param item Reference to the recipe component item in question.
@@ -278,10 +384,22 @@ public class HerbalismCraftingStationRecipe extends AbstractWorkstationRecipe {
         @Override
         protected String getParameter(List<Integer> slots, EntityRef item) {
             if (item.hasComponent(EmptyPotionComponent.class)) {
-                potionRecipeResultFactory.setPotionBottleRef(item);
+                return new PotionBottleParameter(super.getParameter(slots, item), item.getParentPrefab().getUrn().toString(),
+                        item.getComponent(DurabilityComponent.class)).toString();
             }
             return super.getParameter(slots, item);
         }
+
+        /**
+         * Return an integer list of workstation inventory slots this potion container is present in.
+         *
+         * @param parameter Ingredient parameter of the item being searched for.
+         * @return What inventory slots this item is present in.
+         */
+        @Override
+        protected List<Integer> getSlots(String parameter) {
+            return super.getSlots(PotionBottleParameter.getSlots(parameter));
+        }
     }
 
     /**
@@ -299,6 +417,22 @@ public class HerbalismCraftingStationRecipe extends AbstractWorkstationRecipe {
             super(matcher, count, resolver);
         }
 
+        /**
+         * Get the parameters of all of the herbs in the station that can be used for crafting. Stations that can't match
+         * this recipe are skipped without looking at their slots.
+         *
+         * @param entity        The station entity.
+         * @param multiplier    The consumption effects multiplier.
+         * @return              A list of the valid ingredient parameters.
+         */
+        @Override
+        public List<String> getValidToCraft(EntityRef entity, int multiplier) {
+            if (!isCandidateFor(entity)) {
+                return Collections.emptyList();
+            }
+            return super.getValidToCraft(entity, multiplier);
+        }
+
         /**
          * Get the ingredient parameters and where they are located in the workstation's inventory, and return them as a String. If
          * possible, add the genome parameters of the herbs to the parameter String.
@@ -311,7 +445,7 @@ public class HerbalismCraftingStationRecipe extends AbstractWorkstationRecipe {
         protected String getParameter(List<Integer> slots, EntityRef item) {
             final GenomeComponent genome = item.getComponent(GenomeComponent.class);
             final String herbName = CoreRegistry.get(GenomeManager.class).getGenomeProperty(item, Herbalism.NAME_PROPERTY, String.class);
-            return super.getParameter(slots, item) + "|" + genome.genomeId + "|" + genome.genes + "|" + herbName;
+            return new HerbParameter(super.getParameter(slots, item), genome.genomeId, genome.genes, herbName, null).toString();
         }
 
         /**
@@ -322,7 +456,7 @@ public class HerbalismCraftingStationRecipe extends AbstractWorkstationRecipe {
          */
         @Override
         protected List<Integer> getSlots(String parameter) {
-            return super.getSlots(parameter.substring(0, parameter.indexOf('|')));
+            return super.getSlots(HerbParameter.getSlots(parameter));
         }
     }
 }
@@ -0,0 +1,216 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.herbalism.ui;
+
+import org.terasology.alchemy.Alchemy;
+import org.terasology.engine.core.Time;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.prefab.Prefab;
+import org.terasology.engine.logic.common.DisplayNameComponent;
+import org.terasology.engine.registry.CoreRegistry;
+import org.terasology.engine.utilities.Assets;
+import org.terasology.fluid.component.FluidComponent;
+import org.terasology.fluid.component.FluidInventoryComponent;
+import org.terasology.fluid.system.FluidRegistry;
+import org.terasology.heat.component.HeatProducerComponent;
+import org.terasology.herbalism.component.HerbalismBrewQueueComponent;
+import org.terasology.math.TeraMath;
+import org.terasology.workstation.component.WorkstationProcessingComponent;
+
+import java.util.List;
+
+/**
+ * The state of a single HerbalismStation as displayed by its window. The values are read from the station's components
+ * only when those change, so the window's bindings don't have to look them up every frame. Values that change over time
+ * (like the crafting progress) are interpolated from the cached start and end times.
+ */
+public class HerbalismStationViewModel {
+    /** The station being displayed. */
+    private final EntityRef station;
+
+    /** The station's fluid inventory slot holding the water. */
+    private final int waterSlot;
+
+    private final Time time;
+    private final FluidRegistry fluidRegistry;
+
+    /** The fluid entity in the water slot, as of the last fluid update. */
+    private EntityRef fluidEntity = EntityRef.NULL;
+    private String fluidText = "0ml";
+
+    /** Start time and length of the last fuel burn. A length of 0 means nothing has been burnt. */
+    private long burnStartTime;
+    private long burnLength;
+
+    /** Start and finish time of the running herbalism process, if there is one. */
+    private boolean processing;
+    private long processingStartTime;
+    private long processingFinishTime;
+
+    private String queueText = "";
+
+    /**
+     * Create the view model of a station, reading all of its current values.
+     *
+     * @param station       The station being displayed.
+     * @param waterSlot     The station's fluid inventory slot holding the water.
+     */
+    public HerbalismStationViewModel(EntityRef station, int waterSlot) {
+        this.station = station;
+        this.waterSlot = waterSlot;
+        this.time = CoreRegistry.get(Time.class);
+        this.fluidRegistry = CoreRegistry.get(FluidRegistry.class);
+
+        updateFluid();
+        updateHeat();
+        updateProcessing();
+        updateQueue();
+    }
+
+    public EntityRef getStation() {
+        return station;
+    }
+
+    /**
+     * Check whether the given entity is the fluid displayed by this view model.
+     *
+     * @param entity    The entity to check.
+     * @return          True if the entity is the fluid in the station's water slot. False otherwise.
+     */
+    public boolean isFluidEntity(EntityRef entity) {
+        return fluidEntity.exists() && fluidEntity.equals(entity);
+    }
+
+    /**
+     * Read the station's water slot again.
+     */
+    public void updateFluid() {
+        FluidInventoryComponent fluidInventory = station.getComponent(FluidInventoryComponent.class);
+        fluidEntity = fluidInventory != null ? fluidInventory.fluidSlots.get(waterSlot) : EntityRef.NULL;
+
+        final FluidComponent fluid = fluidEntity.getComponent(FluidComponent.class);
+        if (fluid == null) {
+            fluidText = "0ml";
+        } else {
+            fluidText = TeraMath.floorToInt(fluid.volume * 1000) + "ml of " + fluidRegistry.getDisplayName(fluid.fluidType);
+        }
+    }
+
+    /**
+     * Read the station's last consumed fuel again.
+     */
+    public void updateHeat() {
+        HeatProducerComponent heatProducer = station.getComponent(HeatProducerComponent.class);
+        List<HeatProducerComponent.FuelSourceConsume> consumedFuel = heatProducer != null ? heatProducer.fuelConsumed : null;
+        if (consumedFuel == null || consumedFuel.isEmpty()) {
+            burnLength = 0;
+            return;
+        }
+
+        HeatProducerComponent.FuelSourceConsume lastConsumed = consumedFuel.get(consumedFuel.size() - 1);
+        burnStartTime = lastConsumed.startTime;
+        burnLength = lastConsumed.burnLength;
+    }
+
+    /**
+     * Read the station's running herbalism process again.
+     */
+    public void updateProcessing() {
+        WorkstationProcessingComponent processingComponent = station.getComponent(WorkstationProcessingComponent.class);
+        WorkstationProcessingComponent.ProcessDef herbalismProcess = processingComponent != null
+                ? processingComponent.processes.get(Alchemy.HERBALISM_PROCESS_TYPE) : null;
+
+        processing = herbalismProcess != null;
+        if (processing) {
+            processingStartTime = herbalismProcess.processingStartTime;
+            processingFinishTime = herbalismProcess.processingFinishTime;
+        }
+    }
+
+    /**
+     * Forget about the running herbalism process, as the station no longer runs any process.
+     */
+    public void clearProcessing() {
+        processing = false;
+    }
+
+    /**
+     * Read the station's brewing queue again.
+     */
+    public void updateQueue() {
+        HerbalismBrewQueueComponent queue = station.getComponent(HerbalismBrewQueueComponent.class);
+        if (queue == null || queue.queuedBrews.isEmpty()) {
+            queueText = "";
+            return;
+        }
+
+        StringBuilder sb = new StringBuilder("Queued: ");
+        for (int i = 0; i < queue.queuedBrews.size(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            String processId = queue.queuedBrews.get(i).processId;
+            int batchSize = HerbalismCraftingStationRecipe.getBatchSize(processId);
+            if (batchSize > 1) {
+                sb.append(batchSize).append("x ");
+            }
+            sb.append(getRecipeName(HerbalismCraftingStationRecipe.getRecipeId(processId)));
+        }
+        queueText = sb.toString();
+    }
+
+    /**
+     * Get the name a recipe should be displayed with, which is the display name of the potion it brews.
+     *
+     * @param recipeId  ID of the recipe, which is the URI of the brewed potion's prefab.
+     * @return          The display name of the potion, or the recipe ID if it has none.
+     */
+    private static String getRecipeName(String recipeId) {
+        Prefab prefab = Assets.getPrefab(recipeId).orElse(null);
+        DisplayNameComponent displayName = prefab != null ? prefab.getComponent(DisplayNameComponent.class) : null;
+        return displayName != null ? displayName.name : recipeId;
+    }
+
+    public String getFluidText() {
+        return fluidText;
+    }
+
+    /**
+     * Get the remaining part of the last fuel burn.
+     *
+     * @return  A value from 1 (just started burning) to 0 (burnt out).
+     */
+    public float getBurnRemaining() {
+        if (burnLength == 0) {
+            return 0f;
+        }
+
+        long gameTime = time.getGameTimeInMs();
+        if (gameTime > burnStartTime + burnLength) {
+            return 0f;
+        }
+        return 1f - (1f * (gameTime - burnStartTime) / burnLength);
+    }
+
+    public boolean isProcessing() {
+        return processing;
+    }
+
+    /**
+     * Get the progress of the running herbalism process.
+     *
+     * @return  A value from 0 (just started) to 1 (finished). This is 1 if there's no process running.
+     */
+    public float getProcessingProgress() {
+        if (!processing) {
+            return 1f;
+        }
+
+        long gameTime = time.getGameTimeInMs();
+        return 1f * (gameTime - processingStartTime) / (processingFinishTime - processingStartTime);
+    }
+
+    public String getQueueText() {
+        return queueText;
+    }
+}
@@ -3,31 +3,22 @@
 
 package org.terasology.herbalism.ui;
 
-import org.terasology.alchemy.Alchemy;
-import org.terasology.engine.core.Time;
 import org.terasology.engine.entitySystem.entity.EntityRef;
 import org.terasology.engine.logic.players.LocalPlayer;
 import org.terasology.engine.registry.CoreRegistry;
 import org.terasology.engine.rendering.nui.BaseInteractionScreen;
 import org.terasology.module.inventory.ui.InventoryGrid;
-import org.terasology.fluid.component.FluidComponent;
-import org.terasology.fluid.component.FluidInventoryComponent;
-import org.terasology.fluid.system.FluidRegistry;
 import org.terasology.fluid.ui.FluidContainerWidget;
-import org.terasology.heat.component.HeatProducerComponent;
 import org.terasology.heat.ui.ThermometerWidget;
-import org.terasology.math.TeraMath;
 import org.terasology.nui.databinding.Binding;
 import org.terasology.nui.databinding.ReadOnlyBinding;
+import org.terasology.nui.widgets.UILabel;
 import org.terasology.nui.widgets.UILoadBar;
 import org.terasology.processing.ui.VerticalTextureProgressWidget;
 import org.terasology.processing.ui.WorkstationScreenUtils;
 import org.terasology.workstation.component.WorkstationInventoryComponent;
-import org.terasology.workstation.component.WorkstationProcessingComponent;
 import org.terasology.workstationCrafting.ui.workstation.StationAvailableRecipesWidget;
 
-import java.util.List;
-
 /**
  * This interaction screen defines how the HerbalismStation will look and be interacted with.
  */
@@ -45,6 +36,10 @@ public class HerbalismStationWindow extends BaseInteractionScreen {
     private StationAvailableRecipesWidget availableRecipes;
     private InventoryGrid resultInventory;
     private UILoadBar craftingProgress;
+    private UILabel brewQueue;
+
+    /** The displayed state of the current station. */
+    private HerbalismStationViewModel viewModel;
 
     /**
      * Initialize all of the UI widgets of this window.
@@ -70,6 +65,8 @@ public class HerbalismStationWindow extends BaseInteractionScreen {
 
         craftingProgress = find("craftingProgress", UILoadBar.class);
 
+        brewQueue = find("brewQueue", UILabel.class);
+
         resultInventory = find("resultInventory", InventoryGrid.class);
 
         InventoryGrid playerInventory = find("playerInventory", InventoryGrid.class);
@@ -114,6 +111,9 @@ public class HerbalismStationWindow extends BaseInteractionScreen {
         final int waterSlot = fluidInputAssignments.slotStart;
         fluidContainer.setSlotNo(waterSlot);
 
+        // The bindings below read the station's state from the view model, which is only updated when it changes.
+        viewModel = new HerbalismStationViewModel(station, waterSlot);
+
         // Bind the tooltip strings for all the widgets.
         ingredientsInventory.bindTooltipString(
                 new ReadOnlyBinding<String>() {
@@ -174,14 +174,7 @@ public class HerbalismStationWindow extends BaseInteractionScreen {
                     // Here, details about the fluid inventory's fluid is returned.
                     @Override
                     public String get() {
-                        FluidInventoryComponent fluidInventory = station.getComponent(FluidInventoryComponent.class);
-                        final FluidComponent fluid = fluidInventory.fluidSlots.get(waterSlot).getComponent(FluidComponent.class);
-                        if (fluid == null) {
-                            return "0ml";
-                        } else {
-                            FluidRegistry fluidRegistry = CoreRegistry.get(FluidRegistry.class);
-                            return TeraMath.floorToInt(fluid.volume * 1000) + "ml of " + fluidRegistry.getDisplayName(fluid.fluidType);
-                        }
+                        return viewModel.getFluidText();
                     }
                 });
 
@@ -192,18 +185,7 @@ public class HerbalismStationWindow extends BaseInteractionScreen {
                     // Return a bar graph indicator of the current fuel status of the workstation.
                     @Override
                     public Float get() {
-                        HeatProducerComponent heatProducer = station.getComponent(HeatProducerComponent.class);
-                        List<HeatProducerComponent.FuelSourceConsume> consumedFuel = heatProducer.fuelConsumed;
-                        if (consumedFuel.size() == 0) {
-                            return 0f;
-                        }
-                        long gameTime = CoreRegistry.get(Time.class).getGameTimeInMs();
-
-                        HeatProducerComponent.FuelSourceConsume lastConsumed = consumedFuel.get(consumedFuel.size() - 1);
-                        if (gameTime > lastConsumed.startTime + lastConsumed.burnLength) {
-                            return 0f;
-                        }
-                        return 1f - (1f * (gameTime - lastConsumed.startTime) / lastConsumed.burnLength);
+                        return viewModel.getBurnRemaining();
                     }
 
                     @Override
@@ -218,12 +200,7 @@ public class HerbalismStationWindow extends BaseInteractionScreen {
                     // Return a progress bar indicating the current progress of crafting (if currently running).
                     @Override
                     public Boolean get() {
-                        WorkstationProcessingComponent processing = station.getComponent(WorkstationProcessingComponent.class);
-                        if (processing == null) {
-                            return false;
-                        }
-                        WorkstationProcessingComponent.ProcessDef herbalismProcess = processing.processes.get(Alchemy.HERBALISM_PROCESS_TYPE);
-                        return herbalismProcess != null;
+                        return viewModel.isProcessing();
                     }
 
                     @Override
@@ -235,19 +212,7 @@ public class HerbalismStationWindow extends BaseInteractionScreen {
                 new Binding<Float>() {
                     @Override
                     public Float get() {
-                        WorkstationProcessingComponent processing = station.getComponent(WorkstationProcessingComponent.class);
-                        if (processing == null) {
-                            return 1f;
-                        }
-                        WorkstationProcessingComponent.ProcessDef herbalismProcess = processing.processes.get(Alchemy.HERBALISM_PROCESS_TYPE);
-                        if (herbalismProcess == null) {
-                            return 1f;
-                        }
-
-                        long gameTime = CoreRegistry.get(Time.class).getGameTimeInMs();
-
-                        return 1f * (gameTime - herbalismProcess.processingStartTime)
-                                / (herbalismProcess.processingFinishTime - herbalismProcess.processingStartTime);
+                        return viewModel.getProcessingProgress();
                     }
 
                     @Override
@@ -255,6 +220,16 @@ public class HerbalismStationWindow extends BaseInteractionScreen {
                     }
                 }
         );
+
+        brewQueue.bindText(
+                new ReadOnlyBinding<String>() {
+                    // Return the list of brews waiting to be started after the current one.
+                    @Override
+                    public String get() {
+                        return viewModel.getQueueText();
+                    }
+                }
+        );
     }
 
     @Override
@@ -262,6 +237,15 @@ public class HerbalismStationWindow extends BaseInteractionScreen {
         return false;
     }
 
+    /**
+     * Get the displayed state of the station this window was last opened for.
+     *
+     * @return  The station's view model, or null if the window hasn't been opened yet.
+     */
+    public HerbalismStationViewModel getViewModel() {
+        return viewModel;
+    }
+
     /**
      * Update the available recipes widget on the next tick.
      */
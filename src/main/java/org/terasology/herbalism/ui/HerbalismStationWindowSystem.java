@@ -2,108 +2,310 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.terasology.herbalism.ui;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.terasology.engine.entitySystem.entity.EntityManager;
 import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.BeforeRemoveComponent;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnAddedComponent;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnChangedComponent;
 import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
 import org.terasology.engine.entitySystem.systems.RegisterSystem;
-import org.terasology.engine.logic.characters.interactions.InteractionScreenComponent;
+import org.terasology.engine.entitySystem.systems.UpdateSubscriberSystem;
+import org.terasology.engine.logic.console.commandSystem.annotations.Command;
+import org.terasology.engine.logic.permission.PermissionManager;
 import org.terasology.engine.registry.In;
 import org.terasology.engine.rendering.nui.NUIManager;
+import org.terasology.fluid.component.FluidComponent;
+import org.terasology.fluid.component.FluidInventoryComponent;
 import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
+import org.terasology.heat.component.HeatProducerComponent;
+import org.terasology.herbalism.component.HerbalismBrewQueueComponent;
+import org.terasology.herbalism.component.HerbalismStationComponent;
 import org.terasology.module.inventory.events.BeforeItemPutInInventory;
 import org.terasology.module.inventory.events.BeforeItemRemovedFromInventory;
 import org.terasology.module.inventory.events.InventorySlotStackSizeChangedEvent;
-import org.terasology.workstation.component.WorkstationInventoryComponent;
+import org.terasology.workstation.component.WorkstationProcessingComponent;
 import org.terasology.workstationCrafting.event.CraftingStationUpgraded;
 
 /**
  * This class is designed for handling certain events related to the HerbalismStation UI.
+ * <p>
+ * A single player action (like dragging a stack across slots) fires several inventory events in a row, so the window's
+ * available recipes aren't refreshed right away. Instead, the reasons for refreshing are collected in a mask, and the
+ * window is refreshed at most once per frame.
+ * <p>
+ * Only the events of entities with a HerbalismStationComponent reach this system, and they're ignored unless the
+ * HerbalismStation window is actually open.
  */
-@RegisterSystem
-public class HerbalismStationWindowSystem extends BaseComponentSystem {
+@RegisterSystem(RegisterMode.CLIENT)
+public class HerbalismStationWindowSystem extends BaseComponentSystem implements UpdateSubscriberSystem {
+    /** An item was put into one of the station's slots. */
+    public static final int REFRESH_ITEM_PUT = 1;
+    /** The stack size in one of the station's slots changed. */
+    public static final int REFRESH_STACK_SIZE_CHANGED = 1 << 1;
+    /** An item was removed from one of the station's slots. */
+    public static final int REFRESH_ITEM_REMOVED = 1 << 2;
+    /** The station was upgraded. */
+    public static final int REFRESH_STATION_UPGRADED = 1 << 3;
+
+    private static final Logger logger = LoggerFactory.getLogger(HerbalismStationWindowSystem.class);
+
     @In
     EntityManager entityManager;
 
     @In
     private NUIManager nuiManager;
 
+    /** The reasons for refreshing the window that were collected since the last refresh. */
+    private int pendingRefreshReasons;
+
+    /** Number of refresh requests that were merged into an already pending refresh. */
+    private long savedRefreshCount;
+
     @Override
     public void initialise() {
     }
 
+    /**
+     * Refresh the window's available recipes if any refresh was requested since the last frame.
+     *
+     * @param delta     The time (in seconds) since the last engine update.
+     */
+    @Override
+    public void update(float delta) {
+        if (pendingRefreshReasons == 0) {
+            return;
+        }
+
+        HerbalismStationWindow screen = (HerbalismStationWindow) nuiManager.getScreen("Alchemy:HerbalismStation");
+        if (screen != null) {
+            logger.trace("Refreshing herbalism station recipes (reasons: {}, saved refreshes so far: {})",
+                    pendingRefreshReasons, savedRefreshCount);
+            screen.updateAvailableRecipes();
+        }
+        pendingRefreshReasons = 0;
+    }
+
+    /**
+     * Show how many window refreshes were avoided by merging them with an already pending one.
+     *
+     * @return  The number of saved refreshes.
+     */
+    @Command(shortDescription = "Show how many herbalism station window refreshes were merged",
+            requiredPermission = PermissionManager.DEBUG_PERMISSION)
+    public String herbalismWindowRefreshStats() {
+        return String.format("Herbalism station window: %d refreshes saved by merging", savedRefreshCount);
+    }
+
+    /**
+     * Request the window's available recipes to be refreshed on the next frame.
+     *
+     * @param reason    The reason for the refresh, as one of the REFRESH flags.
+     */
+    private void requestRefresh(int reason) {
+        if (!nuiManager.isOpen("Alchemy:HerbalismStation")) {
+            return;
+        }
+        if (pendingRefreshReasons != 0) {
+            savedRefreshCount++;
+        }
+        pendingRefreshReasons |= reason;
+    }
+
     /**
      * Just before an item is placed into one of the herbalism station's inventory slots, update the UI screen.
      *
      * @param event       Details of this event.
-     * @param entity      Entity reference to the workstation. May not be a HerbalismStation though.
-     * @param inventory   Inventory of the workstation.
+     * @param entity      Entity reference to the HerbalismStation.
+     * @param station     Marks the entity as a HerbalismStation.
      */
     @ReceiveEvent
     public void itemPutIntoInventorySlot(BeforeItemPutInInventory event, EntityRef entity,
-                                         WorkstationInventoryComponent inventory) {
-        if (entity.getComponent(InteractionScreenComponent.class).screen.equalsIgnoreCase("Alchemy:HerbalismStation")) {
-            HerbalismStationWindow screen = (HerbalismStationWindow) nuiManager.getScreen("Alchemy:HerbalismStation");
-
-            if (screen != null) {
-                screen.updateAvailableRecipes();
-            }
-        }
+                                         HerbalismStationComponent station) {
+        requestRefresh(REFRESH_ITEM_PUT);
     }
 
     /**
      * When one of the item stack sizes present in the herbalism station's inventory slots changes, update the UI screen.
      *
      * @param event       Details of this event.
-     * @param entity      Entity reference to the workstation. May not be a HerbalismStation though.
-     * @param inventory   Inventory of the workstation.
+     * @param entity      Entity reference to the HerbalismStation.
+     * @param station     Marks the entity as a HerbalismStation.
      */
     @ReceiveEvent
     public void itemPutIntoInventorySlot(InventorySlotStackSizeChangedEvent event, EntityRef entity,
-                                         WorkstationInventoryComponent inventory) {
-        if (entity.getComponent(InteractionScreenComponent.class).screen.equalsIgnoreCase("Alchemy:HerbalismStation")) {
-            HerbalismStationWindow screen = (HerbalismStationWindow) nuiManager.getScreen("Alchemy:HerbalismStation");
-
-            if (screen != null) {
-                screen.updateAvailableRecipes();
-            }
-        }
+                                         HerbalismStationComponent station) {
+        requestRefresh(REFRESH_STACK_SIZE_CHANGED);
     }
 
     /**
      * Just before an item is removed from one of the herbalism station's inventory slots, update the UI screen.
      *
      * @param event       Details of this event.
-     * @param entity      Entity reference to the workstation. May not be a HerbalismStation though.
-     * @param inventory   Inventory of the workstation.
+     * @param entity      Entity reference to the HerbalismStation.
+     * @param station     Marks the entity as a HerbalismStation.
      */
     @ReceiveEvent
     public void itemRemovedFromInventorySlot(BeforeItemRemovedFromInventory event, EntityRef entity,
-                                             WorkstationInventoryComponent inventory) {
-        if (entity.getComponent(InteractionScreenComponent.class).screen.equalsIgnoreCase("Alchemy:HerbalismStation")) {
-            HerbalismStationWindow screen = (HerbalismStationWindow) nuiManager.getScreen("Alchemy:HerbalismStation");
-
-            if (screen != null) {
-                screen.updateAvailableRecipes();
-            }
-        }
+                                             HerbalismStationComponent station) {
+        requestRefresh(REFRESH_ITEM_REMOVED);
     }
 
     /**
      * When the herbalism station has been upgraded, update the UI screen.
      *
      * @param event       Details of this event.
-     * @param entity      Entity reference to the workstation. May not be a HerbalismStation though.
-     * @param inventory   Inventory of the workstation.
+     * @param entity      Entity reference to the HerbalismStation.
+     * @param station     Marks the entity as a HerbalismStation.
      */
     @ReceiveEvent
     public void onCraftingStationUpgraded(CraftingStationUpgraded event, EntityRef entity,
-                                         WorkstationInventoryComponent inventory) {
-        if (entity.getComponent(InteractionScreenComponent.class).screen.equalsIgnoreCase("Alchemy:HerbalismStation")) {
-            HerbalismStationWindow screen = (HerbalismStationWindow) nuiManager.getScreen("Alchemy:HerbalismStation");
+                                         HerbalismStationComponent station) {
+        requestRefresh(REFRESH_STATION_UPGRADED);
+    }
+
+    /**
+     * When the station's fuel changes, update the displayed burn state.
+     *
+     * @param event         Details of the component change.
+     * @param entity        Entity reference to the HerbalismStation.
+     * @param heatProducer  The station's heat producer.
+     * @param station       Marks the entity as a HerbalismStation.
+     */
+    @ReceiveEvent
+    public void onHeatChanged(OnChangedComponent event, EntityRef entity, HeatProducerComponent heatProducer,
+                              HerbalismStationComponent station) {
+        HerbalismStationViewModel viewModel = getOpenViewModel(entity);
+        if (viewModel != null) {
+            viewModel.updateHeat();
+        }
+    }
+
+    /**
+     * When the station starts or changes a process, update the displayed crafting progress.
+     *
+     * @param event         Details of the component change.
+     * @param entity        Entity reference to the HerbalismStation.
+     * @param processing    The station's running processes.
+     * @param station       Marks the entity as a HerbalismStation.
+     */
+    @ReceiveEvent
+    public void onProcessingChanged(OnChangedComponent event, EntityRef entity, WorkstationProcessingComponent processing,
+                                    HerbalismStationComponent station) {
+        HerbalismStationViewModel viewModel = getOpenViewModel(entity);
+        if (viewModel != null) {
+            viewModel.updateProcessing();
+        }
+    }
+
+    /**
+     * When the station starts its first process, update the displayed crafting progress.
+     *
+     * @param event         Details of the component addition.
+     * @param entity        Entity reference to the HerbalismStation.
+     * @param processing    The station's running processes.
+     * @param station       Marks the entity as a HerbalismStation.
+     */
+    @ReceiveEvent
+    public void onProcessingAdded(OnAddedComponent event, EntityRef entity, WorkstationProcessingComponent processing,
+                                  HerbalismStationComponent station) {
+        HerbalismStationViewModel viewModel = getOpenViewModel(entity);
+        if (viewModel != null) {
+            viewModel.updateProcessing();
+        }
+    }
 
-            if (screen != null) {
-                screen.updateAvailableRecipes();
-            }
+    /**
+     * When the station finishes its last process, hide the crafting progress.
+     *
+     * @param event         Details of the component removal.
+     * @param entity        Entity reference to the HerbalismStation.
+     * @param processing    The station's running processes.
+     * @param station       Marks the entity as a HerbalismStation.
+     */
+    @ReceiveEvent
+    public void onProcessingRemoved(BeforeRemoveComponent event, EntityRef entity, WorkstationProcessingComponent processing,
+                                    HerbalismStationComponent station) {
+        HerbalismStationViewModel viewModel = getOpenViewModel(entity);
+        if (viewModel != null) {
+            viewModel.clearProcessing();
+        }
+    }
+
+    /**
+     * When the station's fluid inventory changes, update the displayed fluid.
+     *
+     * @param event             Details of the component change.
+     * @param entity            Entity reference to the HerbalismStation.
+     * @param fluidInventory    The station's fluid inventory.
+     * @param station           Marks the entity as a HerbalismStation.
+     */
+    @ReceiveEvent
+    public void onFluidInventoryChanged(OnChangedComponent event, EntityRef entity, FluidInventoryComponent fluidInventory,
+                                        HerbalismStationComponent station) {
+        HerbalismStationViewModel viewModel = getOpenViewModel(entity);
+        if (viewModel != null) {
+            viewModel.updateFluid();
+        }
+    }
+
+    /**
+     * When the fluid in the displayed station changes its volume, update the displayed fluid.
+     *
+     * @param event     Details of the component change.
+     * @param entity    Entity reference to the fluid.
+     * @param fluid     The changed fluid.
+     */
+    @ReceiveEvent
+    public void onFluidChanged(OnChangedComponent event, EntityRef entity, FluidComponent fluid) {
+        HerbalismStationWindow screen = getOpenScreen();
+        if (screen != null && screen.getViewModel() != null && screen.getViewModel().isFluidEntity(entity)) {
+            screen.getViewModel().updateFluid();
+        }
+    }
+
+    /**
+     * When the station's brewing queue changes, update the displayed queue.
+     *
+     * @param event     Details of the component change.
+     * @param entity    Entity reference to the HerbalismStation.
+     * @param queue     The station's brewing queue.
+     * @param station   Marks the entity as a HerbalismStation.
+     */
+    @ReceiveEvent
+    public void onBrewQueueChanged(OnChangedComponent event, EntityRef entity, HerbalismBrewQueueComponent queue,
+                                   HerbalismStationComponent station) {
+        HerbalismStationViewModel viewModel = getOpenViewModel(entity);
+        if (viewModel != null) {
+            viewModel.updateQueue();
+        }
+    }
+
+    /**
+     * Get the HerbalismStation window, if it's open.
+     *
+     * @return  The open window, or null if it isn't open.
+     */
+    private HerbalismStationWindow getOpenScreen() {
+        if (!nuiManager.isOpen("Alchemy:HerbalismStation")) {
+            return null;
+        }
+        return (HerbalismStationWindow) nuiManager.getScreen("Alchemy:HerbalismStation");
+    }
+
+    /**
+     * Get the view model of the given station, if its window is open.
+     *
+     * @param station   Entity reference to the HerbalismStation.
+     * @return          The station's view model, or null if its window isn't open.
+     */
+    private HerbalismStationViewModel getOpenViewModel(EntityRef station) {
+        HerbalismStationWindow screen = getOpenScreen();
+        if (screen == null || screen.getViewModel() == null || !screen.getViewModel().getStation().equals(station)) {
+            return null;
         }
+        return screen.getViewModel();
     }
 }
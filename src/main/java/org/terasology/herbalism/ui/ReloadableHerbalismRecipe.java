@@ -0,0 +1,53 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.herbalism.ui;
+
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.workstationCrafting.system.recipe.workstation.CraftingStationRecipe;
+
+import java.util.List;
+
+/**
+ * A HerbalismStation recipe that passes everything on to another recipe, which can be swapped out. The
+ * WorkstationRegistry can't unregister or replace a process, so each herbalism process is registered once with one of
+ * these, and reloading its recipe only swaps the recipe behind it. This keeps the process IDs the same on every node
+ * and across restarts.
+ */
+public class ReloadableHerbalismRecipe implements CraftingStationRecipe {
+    /** The recipe currently brewed by the process. */
+    private HerbalismCraftingStationRecipe recipe;
+
+    /**
+     * Create a recipe passing everything on to the given one.
+     *
+     * @param recipe    The recipe to start with.
+     */
+    public ReloadableHerbalismRecipe(HerbalismCraftingStationRecipe recipe) {
+        this.recipe = recipe;
+    }
+
+    /**
+     * Replace the recipe brewed by the process. Brews that are already running look up their result through the new
+     * recipe when they finish.
+     *
+     * @param recipe    The new recipe.
+     */
+    public void setRecipe(HerbalismCraftingStationRecipe recipe) {
+        this.recipe = recipe;
+    }
+
+    @Override
+    public List<CraftingStationResult> getMatchingRecipeResultsForDisplay(EntityRef station) {
+        return recipe.getMatchingRecipeResultsForDisplay(station);
+    }
+
+    @Override
+    public List<CraftingStationResult> getMatchingRecipeResults(EntityRef station) {
+        return recipe.getMatchingRecipeResults(station);
+    }
+
+    @Override
+    public CraftingStationResult getResultById(EntityRef station, String resultId) {
+        return recipe.getResultById(station, resultId);
+    }
+}